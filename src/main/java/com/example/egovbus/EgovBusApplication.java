@@ -3,6 +3,7 @@ package com.example.egovbus;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
@@ -19,6 +20,7 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 @EnableJpaRepositories(basePackages = "com.example.egovbus.repository")
 @EntityScan(basePackages = "com.example.egovbus.model")
 @EnableScheduling
+@EnableAsync
 public class EgovBusApplication {
 
     public static void main(String[] args) {
@@ -9,7 +9,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Data Initializer - Creates initial admin and sample data
@@ -21,6 +25,7 @@ public class DataInitializer {
     
     private final UserRepository userRepository;
     private final RouteRepository routeRepository;
+    private final BusStopRepository busStopRepository;
     private final BusRepository busRepository;
     private final PasswordEncoder passwordEncoder;
     
@@ -63,12 +68,14 @@ public class DataInitializer {
     }
     
     private void createSampleRoutes() {
+        Map<String, BusStop> stops = createSampleStops();
+        
         Route route1 = new Route();
         route1.setRouteNumber("R001");
         route1.setRouteName("Bole - Merkato");
         route1.setStartPoint("Bole International Airport");
         route1.setEndPoint("Merkato Bus Station");
-        route1.setStops(Arrays.asList(
+        route1.setStops(stopsOf(stops,
             "Bole Airport", "Bole Medhanialem", "Mexico Square", 
             "Meskel Square", "Leghar", "Piassa", "Merkato"
         ));
@@ -83,7 +90,7 @@ public class DataInitializer {
         route2.setRouteName("Kality - CMC");
         route2.setStartPoint("Kality Total");
         route2.setEndPoint("CMC Michael");
-        route2.setStops(Arrays.asList(
+        route2.setStops(stopsOf(stops,
             "Kality", "Saris Abo", "Saris", "Gotera", 
             "Mexico", "Bambis", "CMC"
         ));
@@ -98,7 +105,7 @@ public class DataInitializer {
         route3.setRouteName("Megenagna - Tor Hailoch");
         route3.setStartPoint("Megenagna");
         route3.setEndPoint("Tor Hailoch");
-        route3.setStops(Arrays.asList(
+        route3.setStops(stopsOf(stops,
             "Megenagna", "Yeka", "Kotebe", "Ayat", 
             "Kara", "Lebu", "Tor Hailoch"
         ));
@@ -112,6 +119,49 @@ public class DataInitializer {
         log.info("Sample routes created");
     }
     
+    /**
+     * 샘플 정류장 (아디스아바바 근사 좌표)
+     */
+    private Map<String, BusStop> createSampleStops() {
+        List<BusStop> stops = Arrays.asList(
+            new BusStop("Bole Airport", 8.9779, 38.7993),
+            new BusStop("Bole Medhanialem", 8.9955, 38.7870),
+            new BusStop("Mexico Square", 9.0105, 38.7451),
+            new BusStop("Meskel Square", 9.0107, 38.7613),
+            new BusStop("Leghar", 9.0126, 38.7500),
+            new BusStop("Piassa", 9.0352, 38.7524),
+            new BusStop("Merkato", 9.0364, 38.7369),
+            new BusStop("Kality", 8.9094, 38.7608),
+            new BusStop("Saris Abo", 8.9430, 38.7590),
+            new BusStop("Saris", 8.9560, 38.7570),
+            new BusStop("Gotera", 8.9870, 38.7560),
+            new BusStop("Mexico", 9.0095, 38.7460),
+            new BusStop("Bambis", 9.0195, 38.7617),
+            new BusStop("CMC", 9.0210, 38.8440),
+            new BusStop("Megenagna", 9.0200, 38.8010),
+            new BusStop("Yeka", 9.0400, 38.8100),
+            new BusStop("Kotebe", 9.0390, 38.8530),
+            new BusStop("Ayat", 9.0230, 38.8790),
+            new BusStop("Kara", 9.0500, 38.8900),
+            new BusStop("Lebu", 8.9590, 38.7170),
+            new BusStop("Tor Hailoch", 9.0080, 38.7200)
+        );
+        Map<String, BusStop> byName = new HashMap<>();
+        for (BusStop stop : busStopRepository.saveAll(stops)) {
+            byName.put(stop.getName(), stop);
+        }
+        log.info("Sample stops created");
+        return byName;
+    }
+    
+    private static List<BusStop> stopsOf(Map<String, BusStop> stops, String... names) {
+        List<BusStop> result = new ArrayList<>();
+        for (String name : names) {
+            result.add(stops.get(name));
+        }
+        return result;
+    }
+    
     private void createSampleBuses() {
         Route route1 = routeRepository.findByRouteNumber("R001").orElse(null);
         Route route2 = routeRepository.findByRouteNumber("R002").orElse(null);
@@ -0,0 +1,51 @@
+package com.example.egovbus.config;
+
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Client inbound channel executor that hands driver location updates to their own pool.
+ *
+ * The inbound channel submits one task per STOMP frame; tasks for {@value #DRIVER_DESTINATION}
+ * run on the driver pool and everything else (subscriptions, reservations, emergencies) on this one,
+ * so a burst of passenger subscriptions never queues in front of location ingest.
+ */
+public class DriverLocationRoutingExecutor extends ThreadPoolTaskExecutor {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String DRIVER_DESTINATION = "/app/update-location";
+
+    private final ThreadPoolTaskExecutor driverExecutor;
+
+    public DriverLocationRoutingExecutor(ThreadPoolTaskExecutor driverExecutor) {
+        this.driverExecutor = driverExecutor;
+    }
+
+    public ThreadPoolTaskExecutor getDriverExecutor() {
+        return driverExecutor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof MessageHandlingRunnable && DRIVER_DESTINATION.equals(
+                SimpMessageHeaderAccessor.getDestination(((MessageHandlingRunnable) task).getMessage().getHeaders()))) {
+            driverExecutor.execute(task);
+        } else {
+            super.execute(task);
+        }
+    }
+
+    @Override
+    public void initialize() {
+        driverExecutor.initialize();
+        super.initialize();
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        driverExecutor.shutdown();
+    }
+}
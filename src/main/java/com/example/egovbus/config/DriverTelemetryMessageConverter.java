@@ -0,0 +1,45 @@
+package com.example.egovbus.config;
+
+import com.example.egovbus.dto.DriverLocationUpdate;
+import com.example.egovbus.dto.DriverTelemetryFrame;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+/**
+ * STOMP message converter for binary driver telemetry frames.
+ * Only applies to messages with content-type {@value DriverTelemetryFrame#CONTENT_TYPE};
+ * JSON location updates keep going through the default Jackson converter.
+ */
+public class DriverTelemetryMessageConverter extends AbstractMessageConverter {
+
+    public DriverTelemetryMessageConverter() {
+        super(MimeType.valueOf(DriverTelemetryFrame.CONTENT_TYPE));
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return DriverLocationUpdate.class.equals(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        Object payload = message.getPayload();
+        if (!(payload instanceof byte[])) {
+            return null;
+        }
+        try {
+            return DriverTelemetryFrame.decode((byte[]) payload);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException(message, e.getMessage());
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return DriverTelemetryFrame.encode((DriverLocationUpdate) payload);
+    }
+}
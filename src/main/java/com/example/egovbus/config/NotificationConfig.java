@@ -0,0 +1,34 @@
+package com.example.egovbus.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Notification delivery pool.
+ *
+ * Geofence arrival events are raised on the location ingest thread; sending the SMS and push message
+ * runs here instead. When the queue is full the caller sends it itself, so alerts are delayed but never dropped.
+ */
+@Configuration
+public class NotificationConfig {
+
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+
+    @Bean(name = NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationExecutor(
+            @Value("${bus.monitoring.notification.core-pool-size:2}") int corePoolSize,
+            @Value("${bus.monitoring.notification.max-pool-size:4}") int maxPoolSize,
+            @Value("${bus.monitoring.notification.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("notification-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
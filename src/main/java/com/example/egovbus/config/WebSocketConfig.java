@@ -1,18 +1,45 @@
 package com.example.egovbus.config;
 
+import com.example.egovbus.service.FleetFeedOutbox;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToDoubleFunction;
 
 /**
- * WebSocket Configuration for real-time communication
+ * WebSocket Configuration for real-time communication.
+ *
+ * Thread pools and send limits come from bus.monitoring.websocket.*: client inbound frames run on the
+ * "inbound" pool except driver location updates, which get the "driver" pool; broker fan-out to sessions
+ * runs on the "outbound" pool. Pool and queue usage is exported as bus.websocket.executor.* gauges.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String PREFIX = "bus.monitoring.websocket.";
+
+    private final FleetFeedOutbox fleetFeedOutbox;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    public WebSocketConfig(FleetFeedOutbox fleetFeedOutbox, MeterRegistry meterRegistry, Environment environment) {
+        this.fleetFeedOutbox = fleetFeedOutbox;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
@@ -25,4 +52,82 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    /**
+     * Binary driver telemetry frames are accepted next to JSON; default converters are kept
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new DriverTelemetryMessageConverter());
+        return true;
+    }
+
+    /**
+     * Driver location updates are dispatched on their own pool, next to the general inbound pool
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        DriverLocationRoutingExecutor executor = new DriverLocationRoutingExecutor(executor("driver", 4, 8, 5000));
+        configure(executor, "inbound", 4, 8, 1000);
+        monitor(executor, "inbound");
+        monitor(executor.getDriverExecutor(), "driver");
+        registration.taskExecutor(executor);
+    }
+
+    /**
+     * Fan-out pool; live feed deltas to slow sessions are conflated instead of queued (see {@link FleetFeedOutbox})
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        ThreadPoolTaskExecutor executor = executor("outbound", 8, 16, 10000);
+        monitor(executor, "outbound");
+        registration.taskExecutor(executor);
+        registration.interceptors(fleetFeedOutbox);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        registry.setSendTimeLimit(environment.getProperty(PREFIX + "send-time-limit", Integer.class, 10000));
+        registry.setSendBufferSizeLimit(environment.getProperty(PREFIX + "send-buffer-size-limit", Integer.class, 512 * 1024));
+        registry.setMessageSizeLimit(environment.getProperty(PREFIX + "message-size-limit", Integer.class, 64 * 1024));
+        registry.addDecoratorFactory(fleetFeedOutbox);
+    }
+
+    private ThreadPoolTaskExecutor executor(String name, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        configure(executor, name, corePoolSize, maxPoolSize, queueCapacity);
+        return executor;
+    }
+
+    // bus.monitoring.websocket.{name}.core-pool-size / max-pool-size / queue-capacity
+    private void configure(ThreadPoolTaskExecutor executor, String name, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        executor.setCorePoolSize(environment.getProperty(PREFIX + name + ".core-pool-size", Integer.class, corePoolSize));
+        executor.setMaxPoolSize(environment.getProperty(PREFIX + name + ".max-pool-size", Integer.class, maxPoolSize));
+        executor.setQueueCapacity(environment.getProperty(PREFIX + name + ".queue-capacity", Integer.class, queueCapacity));
+        executor.setThreadNamePrefix("ws-" + name + "-");
+    }
+
+    private void monitor(ThreadPoolTaskExecutor executor, String name) {
+        gauge("bus.websocket.executor.active", executor, name, ThreadPoolTaskExecutor::getActiveCount);
+        gauge("bus.websocket.executor.pool.size", executor, name, ThreadPoolTaskExecutor::getPoolSize);
+        gauge("bus.websocket.executor.pool.max", executor, name, ThreadPoolTaskExecutor::getMaxPoolSize);
+        gauge("bus.websocket.executor.queued", executor, name, e -> queue(e, false));
+        gauge("bus.websocket.executor.queue.remaining", executor, name, e -> queue(e, true));
+    }
+
+    private void gauge(String metric, ThreadPoolTaskExecutor executor, String name,
+                       ToDoubleFunction<ThreadPoolTaskExecutor> value) {
+        Gauge.builder(metric, executor, value)
+            .tag("executor", name)
+            .register(meterRegistry);
+    }
+
+    private static double queue(ThreadPoolTaskExecutor executor, boolean remaining) {
+        try {
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            return remaining ? pool.getQueue().remainingCapacity() : pool.getQueue().size();
+        } catch (IllegalStateException e) {
+            return 0;  // not initialized yet
+        }
+    }
+}
@@ -26,6 +26,9 @@ public class AdminController {
     private final RouteRepository routeRepository;
     private final ReservationRepository reservationRepository;
     private final PaymentRepository paymentRepository;
+    private final BusService busService;
+    private final RouteService routeService;
+    private final FleetStateStore fleetStateStore;
     
     /**
      * Get dashboard statistics
@@ -43,8 +46,8 @@ public class AdminController {
         
         // Bus statistics
         stats.put("totalBuses", busRepository.count());
-        stats.put("activeBuses", busRepository.findByStatus(BusStatus.ACTIVE).size());
-        stats.put("maintenanceBuses", busRepository.findByStatus(BusStatus.MAINTENANCE).size());
+        stats.put("activeBuses", busService.getBusesByStatus(BusStatus.ACTIVE).size());
+        stats.put("maintenanceBuses", busService.getBusesByStatus(BusStatus.MAINTENANCE).size());
         
         // Route statistics
         stats.put("totalRoutes", routeRepository.count());
@@ -135,14 +138,14 @@ public class AdminController {
         if (driver.getAssignedBus() != null) {
             Bus previousBus = driver.getAssignedBus();
             previousBus.setDriver(null);
-            busRepository.save(previousBus);
+            fleetStateStore.register(busRepository.save(previousBus));
         }
         
         // Assign new bus
         bus.setDriver(driver);
         bus.setDriverName(driver.getFullName());
         bus.setDriverPhone(driver.getPhoneNumber());
-        busRepository.save(bus);
+        fleetStateStore.register(busRepository.save(bus));
         
         driver.setAssignedBus(bus);
         userRepository.save(driver);
@@ -159,6 +162,7 @@ public class AdminController {
     @PostMapping("/buses")
     public ResponseEntity<?> createBus(@RequestBody Bus bus) {
         Bus savedBus = busRepository.save(bus);
+        fleetStateStore.register(savedBus);
         return ResponseEntity.ok(savedBus);
     }
     
@@ -180,7 +184,11 @@ public class AdminController {
         bus.setRoute(busDetails.getRoute());
         
         Bus updatedBus = busRepository.save(bus);
-        return ResponseEntity.ok(updatedBus);
+        fleetStateStore.register(updatedBus);
+        if (busDetails.getStatus() != null) {
+            fleetStateStore.updateStatus(busId, busDetails.getStatus());
+        }
+        return ResponseEntity.ok(fleetStateStore.overlay(updatedBus));
     }
     
     /**
@@ -189,6 +197,7 @@ public class AdminController {
     @DeleteMapping("/buses/{busId}")
     public ResponseEntity<?> deleteBus(@PathVariable Long busId) {
         busRepository.deleteById(busId);
+        fleetStateStore.evict(busId);
         return ResponseEntity.ok(Map.of(
             "message", "Bus deleted successfully"
         ));
@@ -207,8 +216,12 @@ public class AdminController {
      */
     @PostMapping("/routes")
     public ResponseEntity<?> createRoute(@RequestBody Route route) {
-        Route savedRoute = routeRepository.save(route);
-        return ResponseEntity.ok(savedRoute);
+        try {
+            Route savedRoute = routeService.createRoute(route);
+            return ResponseEntity.ok(savedRoute);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     /**
@@ -219,19 +232,15 @@ public class AdminController {
             @PathVariable Long routeId,
             @RequestBody Route routeDetails) {
         
-        Route route = routeRepository.findById(routeId)
-            .orElseThrow(() -> new RuntimeException("Route not found"));
-        
-        route.setRouteNumber(routeDetails.getRouteNumber());
-        route.setRouteName(routeDetails.getRouteName());
-        route.setStartPoint(routeDetails.getStartPoint());
-        route.setEndPoint(routeDetails.getEndPoint());
-        route.setStops(routeDetails.getStops());
-        route.setFare(routeDetails.getFare());
-        route.setIsActive(routeDetails.getIsActive());
-        
-        Route updatedRoute = routeRepository.save(route);
-        return ResponseEntity.ok(updatedRoute);
+        try {
+            Route updatedRoute = routeService.updateRoute(routeId, routeDetails);
+            if (routeDetails.getIsActive() != null && !routeDetails.getIsActive().equals(updatedRoute.getIsActive())) {
+                updatedRoute = routeService.toggleRouteStatus(routeId);
+            }
+            return ResponseEntity.ok(updatedRoute);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     /**
@@ -239,7 +248,7 @@ public class AdminController {
      */
     @DeleteMapping("/routes/{routeId}")
     public ResponseEntity<?> deleteRoute(@PathVariable Long routeId) {
-        routeRepository.deleteById(routeId);
+        routeService.deleteRoute(routeId);
         return ResponseEntity.ok(Map.of(
             "message", "Route deleted successfully"
         ));
@@ -1,12 +1,31 @@
 package com.example.egovbus.controller;
 
+import com.example.egovbus.dto.DriverLocationUpdate;
+import com.example.egovbus.dto.ListDelta;
+import com.example.egovbus.dto.LocationBatchResult;
+import com.example.egovbus.dto.NearbyBus;
+import com.example.egovbus.dto.StopArrival;
 import com.example.egovbus.model.Bus;
 import com.example.egovbus.model.BusStatus;
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
 import com.example.egovbus.service.BusService;
+import com.example.egovbus.service.FleetSseHub;
+import com.example.egovbus.service.LocationHistoryService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -21,13 +40,34 @@ import java.util.Map;
 public class BusController {
     
     private final BusService busService;
+    private final LocationHistoryService locationHistoryService;
+    private final FleetSseHub fleetSseHub;
+    private final ObjectMapper objectMapper;
+    
+    // 일괄 수신 요청당 최대 위치 건수
+    private static final int MAX_BATCH_SIZE = 5000;
+    
+    // 최근접 조회 최대 대수
+    private static final int MAX_NEAREST = 50;
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
     
     /**
-     * 모든 버스 조회
+     * 모든 버스 조회 (목록 버전이 그대로면 조회 없이 304)
      */
     @GetMapping
-    public ResponseEntity<List<Bus>> getAllBuses() {
-        return ResponseEntity.ok(busService.getAllBuses());
+    public ResponseEntity<byte[]> getAllBuses(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, busService.getBusListTag(false),
+            () -> busService.getSharedBuses(false), objectMapper);
+    }
+    
+    /**
+     * 버전 이후 바뀐 버스만 조회 (?since=X-Snapshot-Version 또는 이전 응답의 version)
+     */
+    @GetMapping(params = "since")
+    public ResponseEntity<ListDelta<Bus>> getBusChanges(@RequestParam long since) {
+        return ResponseEntity.ok(busService.getBusChanges(since, false));
     }
     
     /**
@@ -67,8 +107,18 @@ public class BusController {
      * 운행중인 버스 조회
      */
     @GetMapping("/active")
-    public ResponseEntity<List<Bus>> getActiveBuses() {
-        return ResponseEntity.ok(busService.getActiveBuses());
+    public ResponseEntity<byte[]> getActiveBuses(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, busService.getBusListTag(true),
+            () -> busService.getSharedBuses(true), objectMapper);
+    }
+    
+    /**
+     * 버전 이후 바뀐 운행중 버스만 조회 (운행이 끝난 버스는 removed)
+     */
+    @GetMapping(value = "/active", params = "since")
+    public ResponseEntity<ListDelta<Bus>> getActiveBusChanges(@RequestParam long since) {
+        return ResponseEntity.ok(busService.getBusChanges(since, true));
     }
     
     /**
@@ -99,6 +149,149 @@ public class BusController {
         return ResponseEntity.ok(busService.getBusesInArea(minLat, maxLat, minLon, maxLon));
     }
     
+    /**
+     * 가까운 운행 중 버스 조회 (기본 5대, 최대 50대)
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearbyBus>> getNearestBuses(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) Long routeId,
+            @RequestParam(defaultValue = "false") boolean hasFreeSeats) {
+        if (k <= 0 || k > MAX_NEAREST) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(busService.findNearestBuses(lat, lon, k, routeId, hasFreeSeats));
+    }
+    
+    /**
+     * 실시간 위치 스트림 (Server-Sent Events, routeId 가 없으면 전체 운행 버스)
+     * 첫 이벤트는 스냅샷, 이후는 델타이며 재연결 시 Last-Event-ID 이후 놓친 델타부터 이어서 보낸다.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBuses(
+            @RequestParam(required = false) Long routeId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(fleetSseHub.connect(routeId, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    /**
+     * 하류 정류장 도착 예측 조회 (가까운 순)
+     */
+    @GetMapping("/{id}/eta")
+    public ResponseEntity<List<StopArrival>> getArrivals(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(busService.getArrivals(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * 버스 위치 히스토리 조회 (기본: 최근 1시간)
+     * tolerance(미터) 또는 zoom 을 주면 궤적을 단순화하며, 응답 점 수는 최대 maxPoints (설정값 이하)
+     */
+    @GetMapping("/{id}/locations")
+    public ResponseEntity<List<LocationFix>> getLocationHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double tolerance,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Integer maxPoints) {
+        if (zoom != null && (zoom < 0 || zoom > 22)) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        return ResponseEntity.ok(locationHistoryService.getSimplifiedHistory(id, start, end, tolerance, zoom, maxPoints));
+    }
+    
+    /**
+     * 버스 최근 궤적 조회 (기본: 최근 10분)
+     */
+    @GetMapping("/{id}/trail")
+    public ResponseEntity<List<LocationFix>> getRecentTrail(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int minutes) {
+        if (minutes <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(locationHistoryService.getRecentTrail(id, minutes));
+    }
+    
+    /**
+     * 전체 버스 최근 궤적 조회 (기본: 최근 10분)
+     */
+    @GetMapping("/trails")
+    public ResponseEntity<Map<Long, List<LocationFix>>> getRecentTrails(@RequestParam(defaultValue = "10") int minutes) {
+        if (minutes <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(locationHistoryService.getRecentTrails(minutes));
+    }
+    
+    /**
+     * 위치 히스토리 내보내기 (NDJSON 스트리밍, 기본: 최근 24시간)
+     * 각 줄의 cursor 를 다음 요청의 cursor 로 넘기면 이어서 받을 수 있다.
+     */
+    @GetMapping("/locations/export")
+    public ResponseEntity<StreamingResponseBody> exportLocationHistory(
+            @RequestParam(required = false) Long busId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Long limit) {
+        HistoryCursor after;
+        try {
+            after = cursor != null ? HistoryCursor.parse(cursor) : HistoryCursor.START;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                // 줄 단위 구분을 직접 쓰므로 기본 루트 구분자(공백)는 끈다
+                json.setRootValueSeparator(null);
+                locationHistoryService.export(after, start, end, busId, limit, (position, fix) -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeStringField("cursor", position.encode());
+                        json.writeNumberField("busId", fix.getBusId());
+                        json.writeNumberField("timestamp", fix.getTimestamp());
+                        json.writeNumberField("latitude", fix.getLatitude());
+                        json.writeNumberField("longitude", fix.getLongitude());
+                        if (fix.hasSpeed()) {
+                            json.writeNumberField("speed", fix.getSpeed());
+                        }
+                        if (fix.hasHeading()) {
+                            json.writeNumberField("heading", fix.getHeading());
+                        }
+                        json.writeNumberField("passengers", fix.getPassengers());
+                        if (fix.getNearestStopId() != null) {
+                            json.writeNumberField("nearestStopId", fix.getNearestStopId());
+                        }
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
     /**
      * 버스 생성
      */
@@ -131,7 +324,7 @@ public class BusController {
         try {
             Double latitude = location.get("latitude");
             Double longitude = location.get("longitude");
-            Double speed = location.getOrDefault("speed", 0.0);
+            Double speed = location.get("speed");
             
             Bus updatedBus = busService.updateBusLocation(id, latitude, longitude, speed);
             return ResponseEntity.ok(updatedBus);
@@ -140,6 +333,18 @@ public class BusController {
         }
     }
     
+    /**
+     * 버퍼링된 위치 일괄 수신 (통신 두절 후 재연결한 운전자 앱)
+     * 200 응답 시점에 위치 히스토리는 저장되어 있으므로 앱은 버퍼를 비워도 된다. 실시간 위치는 단건 경로로 보낸다.
+     */
+    @PostMapping("/locations/batch")
+    public ResponseEntity<LocationBatchResult> ingestLocations(@RequestBody List<DriverLocationUpdate> locations) {
+        if (locations.isEmpty() || locations.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(busService.ingestLocations(locations));
+    }
+    
     /**
      * 버스 상태 변경
      */
@@ -0,0 +1,77 @@
+package com.example.egovbus.controller;
+
+import com.example.egovbus.service.SharedResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * 목록 폴링 응답의 ETag 처리.
+ * 스냅샷 버전으로 만든 ETag 와 no-cache 를 붙여, 버전이 그대로면 304 를 돌려준다.
+ */
+final class ETags {
+
+    /** 전체 목록 응답의 스냅샷 버전 (다음 폴링의 ?since= 값) */
+    static final String VERSION_HEADER = "X-Snapshot-Version";
+
+    private ETags() {
+    }
+
+    static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * 조건부 응답 (현재 버전이 같으면 서비스 조회 없이 304)
+     */
+    static ResponseEntity<byte[]> conditional(String ifNoneMatch, String currentTag,
+                                              Supplier<? extends SharedResult<?>> shared, ObjectMapper objectMapper) {
+        String current = quote(currentTag);
+        if (matches(ifNoneMatch, current)) {
+            return notModified(current);
+        }
+        SharedResult<?> result = shared.get();
+        String etag = quote(result.getTag());
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        try {
+            return ok(etag, result.getVersion()).contentType(MediaType.APPLICATION_JSON).body(result.toJson(objectMapper));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * If-None-Match 일치 여부
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    private static ResponseEntity.BodyBuilder ok(String etag, long version) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+            .header(VERSION_HEADER, String.valueOf(version));
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.egovbus.controller;
 
+import com.example.egovbus.dto.ListDelta;
 import com.example.egovbus.model.Route;
 import com.example.egovbus.service.RouteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,21 +23,42 @@ import java.util.Map;
 public class RouteController {
     
     private final RouteService routeService;
+    private final ObjectMapper objectMapper;
     
     /**
-     * 모든 노선 조회
+     * 모든 노선 조회 (목록 버전이 그대로면 조회 없이 304)
      */
     @GetMapping
-    public ResponseEntity<List<Route>> getAllRoutes() {
-        return ResponseEntity.ok(routeService.getAllRoutes());
+    public ResponseEntity<byte[]> getAllRoutes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, routeService.getRouteListTag(false),
+            () -> routeService.getSharedRoutes(false), objectMapper);
+    }
+    
+    /**
+     * 버전 이후 바뀐 노선만 조회
+     */
+    @GetMapping(params = "since")
+    public ResponseEntity<ListDelta<Route>> getRouteChanges(@RequestParam long since) {
+        return ResponseEntity.ok(routeService.getRouteChanges(since, false));
     }
     
     /**
      * 활성 노선만 조회
      */
     @GetMapping("/active")
-    public ResponseEntity<List<Route>> getActiveRoutes() {
-        return ResponseEntity.ok(routeService.getActiveRoutes());
+    public ResponseEntity<byte[]> getActiveRoutes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, routeService.getRouteListTag(true),
+            () -> routeService.getSharedRoutes(true), objectMapper);
+    }
+    
+    /**
+     * 버전 이후 바뀐 활성 노선만 조회 (비활성화된 노선은 removed)
+     */
+    @GetMapping(value = "/active", params = "since")
+    public ResponseEntity<ListDelta<Route>> getActiveRouteChanges(@RequestParam long since) {
+        return ResponseEntity.ok(routeService.getRouteChanges(since, true));
     }
     
     /**
@@ -126,8 +150,13 @@ public class RouteController {
         try {
             String stopName = (String) stopData.get("stopName");
             Integer position = (Integer) stopData.getOrDefault("position", -1);
+            Number latitude = (Number) stopData.get("latitude");
+            Number longitude = (Number) stopData.get("longitude");
             
-            Route updatedRoute = routeService.addStop(id, stopName, position);
+            Route updatedRoute = routeService.addStop(id, stopName,
+                latitude != null ? latitude.doubleValue() : null,
+                longitude != null ? longitude.doubleValue() : null,
+                position);
             return ResponseEntity.ok(updatedRoute);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -0,0 +1,74 @@
+package com.example.egovbus.controller;
+
+import com.example.egovbus.model.BusStop;
+import com.example.egovbus.model.StopSnap;
+import com.example.egovbus.service.GeofenceEngine;
+import com.example.egovbus.service.RouteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stop REST Controller
+ * 정류장 관련 API 엔드포인트
+ */
+@RestController
+@RequestMapping("/api/stops")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class StopController {
+    
+    private final RouteService routeService;
+    private final GeofenceEngine geofenceEngine;
+    
+    /**
+     * 모든 정류장 조회
+     */
+    @GetMapping
+    public ResponseEntity<List<BusStop>> getAllStops() {
+        return ResponseEntity.ok(routeService.getAllStops());
+    }
+    
+    /**
+     * 좌표에서 가장 가까운 정류장 조회
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<StopSnap> getNearestStop(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(required = false) Long routeId) {
+        return routeService.findNearestStop(routeId, lat, lon)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 정류장에 걸린 대기 중인 도착 알림 수
+     */
+    @GetMapping("/{id}/alerts")
+    public ResponseEntity<Map<String, Object>> getPendingAlerts(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of(
+            "stopId", id,
+            "pendingAlerts", geofenceEngine.watchesAt(id).size()
+        ));
+    }
+    
+    /**
+     * 정류장 등록
+     */
+    @PostMapping
+    public ResponseEntity<?> createStop(@RequestBody BusStop stop) {
+        if (stop.getName() == null || stop.getLatitude() == null || stop.getLongitude() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "name, latitude and longitude are required"));
+        }
+        try {
+            BusStop savedStop = routeService.createStop(stop);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedStop);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
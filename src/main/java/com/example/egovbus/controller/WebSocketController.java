@@ -1,17 +1,22 @@
 package com.example.egovbus.controller;
 
-import com.example.egovbus.model.Bus;
+import com.example.egovbus.dto.DriverLocationUpdate;
+import com.example.egovbus.dto.FleetUpdate;
+import com.example.egovbus.dto.LocationAck;
 import com.example.egovbus.model.Notification;
 import com.example.egovbus.service.BusService;
+import com.example.egovbus.service.FleetBroadcaster;
+import com.example.egovbus.service.FleetFeedPublisher;
 import com.example.egovbus.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,46 +29,78 @@ public class WebSocketController {
     
     private final SimpMessagingTemplate messagingTemplate;
     private final BusService busService;
+    private final FleetBroadcaster fleetBroadcaster;
+    private final FleetFeedPublisher fleetFeedPublisher;
     private final NotificationService notificationService;
     
     /**
-     * Broadcast bus location updates every 5 seconds
+     * Broadcast changes of the active fleet every 5 seconds.
+     * Each delta goes only to the shards it affects (whole fleet, route, map tile) that have subscribers;
+     * nothing is sent when no bus changed. Each delta is serialized once and shared by all its subscribers.
      */
     @Scheduled(fixedDelay = 5000)
     public void broadcastBusLocations() {
-        List<Bus> activeBuses = busService.getActiveBuses();
-        messagingTemplate.convertAndSend("/topic/bus-locations", activeBuses);
+        fleetFeedPublisher.publish(fleetBroadcaster.tick());
     }
     
     /**
-     * Handle driver location update
+     * Snapshot of the active fleet, returned to the subscribing session only.
+     * Clients subscribe to /topic/bus-locations first and then here on connect, and again whenever a delta's
+     * baseVersion does not match the version they hold.
+     */
+    @SubscribeMapping("/bus-locations")
+    public FleetUpdate subscribeBusLocations() {
+        return fleetBroadcaster.snapshot(FleetBroadcaster.ALL_DESTINATION);
+    }
+    
+    /**
+     * Snapshot of the active buses on one route (deltas on /topic/routes/{routeId}/buses)
+     */
+    @SubscribeMapping("/routes/{routeId}/buses")
+    public FleetUpdate subscribeRouteBuses(@DestinationVariable Long routeId) {
+        return fleetBroadcaster.snapshot(FleetBroadcaster.routeDestination(routeId));
+    }
+    
+    /**
+     * Snapshot of the active buses inside one geohash map tile (deltas on /topic/tiles/{geohash}/buses).
+     * Viewports subscribe to the few tiles covering them; tile length is limited by
+     * bus.monitoring.broadcast.min-tile-precision / max-tile-precision.
+     */
+    @SubscribeMapping("/tiles/{geohash}/buses")
+    public FleetUpdate subscribeTileBuses(@DestinationVariable String geohash) {
+        String destination = FleetBroadcaster.tileDestination(geohash);
+        if (!fleetBroadcaster.isFeed(destination)) {
+            throw new IllegalArgumentException("Unsupported map tile: " + geohash);
+        }
+        return fleetBroadcaster.snapshot(destination);
+    }
+    
+    /**
+     * Handle driver location update (JSON or binary telemetry frame).
+     * The fix is stamped with the device time and keeps its heading; a fix older than the bus's current
+     * position (sent late after a dead zone) only goes to the history. The result is acknowledged to the sending driver only, on /queue/driver-{busId}/ack.
      */
     @MessageMapping("/update-location")
-    @SendTo("/topic/location-update")
-    public Map<String, Object> updateDriverLocation(Map<String, Object> location) {
+    public void updateDriverLocation(DriverLocationUpdate location) {
+        Long busId = location.getBusId();
+        if (busId == null || location.getLatitude() == null || location.getLongitude() == null) {
+            log.warn("Ignoring incomplete location update: {}", location);
+            return;
+        }
+        
+        LocationAck ack = new LocationAck(busId, location.getSequence(), "success", System.currentTimeMillis(), null);
         try {
-            Long busId = Long.parseLong(location.get("busId").toString());
-            Double latitude = Double.parseDouble(location.get("latitude").toString());
-            Double longitude = Double.parseDouble(location.get("longitude").toString());
-            Double speed = Double.parseDouble(location.getOrDefault("speed", "0").toString());
-            
-            Bus updatedBus = busService.updateBusLocation(busId, latitude, longitude, speed);
-            
-            // Check for arrival notifications
-            notificationService.checkAndSendArrivalNotifications(updatedBus);
-            
-            location.put("status", "success");
-            location.put("timestamp", System.currentTimeMillis());
+            busService.updateDriverLocation(location);
             
-            log.info("Location updated for bus {}: ({}, {})", busId, latitude, longitude);
+            log.debug("Location updated for bus {}: ({}, {})", busId, location.getLatitude(), location.getLongitude());
             
         } catch (Exception e) {
             log.error("Error updating location: {}", e.getMessage());
-            location.put("status", "error");
-            location.put("message", e.getMessage());
+            ack.setStatus("error");
+            ack.setMessage(e.getMessage());
         }
         
-        return location;
+        messagingTemplate.convertAndSend("/queue/driver-" + busId + "/ack", ack);
     }
     
     /**
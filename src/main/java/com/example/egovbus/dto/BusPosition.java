@@ -0,0 +1,110 @@
+package com.example.egovbus.dto;
+
+import com.example.egovbus.model.LiveBusState;
+import com.example.egovbus.model.StopSnap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.Value;
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * Flat live position of one bus, as published on the live fleet topics.
+ *
+ * Built straight from {@link LiveBusState}, so no JPA entity (route stops, driver account) is ever
+ * touched while broadcasting. Timestamps are epoch millis; null fields are left out of the JSON.
+ */
+@Value
+@JsonSerialize(using = BusPosition.Serializer.class)
+public class BusPosition {
+
+    long id;
+    String busNumber;
+    Long routeId;
+    Double latitude;
+    Double longitude;
+    Double speed;  // km/h
+    Integer passengers;
+    Integer capacity;
+    String status;
+    Long nextStopId;
+    String nextStop;
+    Long nextStopArrival;  // estimated arrival at the next stop
+    Long lastUpdated;
+
+    public static BusPosition of(LiveBusState state) {
+        StopSnap snap = state.getStopSnap();
+        return new BusPosition(
+            state.getBusId(),
+            state.getBusNumber(),
+            state.getRouteId(),
+            state.getLatitude(),
+            state.getLongitude(),
+            state.getSpeed(),
+            state.getPassengers(),
+            state.getCapacity(),
+            state.getStatus() != null ? state.getStatus().name() : null,
+            snap != null ? snap.getNextStopId() : null,
+            snap != null ? snap.getNextStopName() : null,
+            snap != null ? snap.getNextStopArrivalMillis() : null,
+            state.getLastUpdated() != null
+                ? state.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null);
+    }
+
+    /**
+     * Writes the fields directly, without bean introspection
+     */
+    public static class Serializer extends StdSerializer<BusPosition> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(BusPosition.class);
+        }
+
+        @Override
+        public void serialize(BusPosition position, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", position.id);
+            writeString(gen, "busNumber", position.busNumber);
+            writeNumber(gen, "routeId", position.routeId);
+            writeNumber(gen, "latitude", position.latitude);
+            writeNumber(gen, "longitude", position.longitude);
+            writeNumber(gen, "speed", position.speed);
+            writeNumber(gen, "passengers", position.passengers);
+            writeNumber(gen, "capacity", position.capacity);
+            writeString(gen, "status", position.status);
+            writeNumber(gen, "nextStopId", position.nextStopId);
+            writeString(gen, "nextStop", position.nextStop);
+            writeNumber(gen, "nextStopArrival", position.nextStopArrival);
+            writeNumber(gen, "lastUpdated", position.lastUpdated);
+            gen.writeEndObject();
+        }
+
+        private static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+            if (value != null) {
+                gen.writeStringField(name, value);
+            }
+        }
+
+        private static void writeNumber(JsonGenerator gen, String name, Long value) throws IOException {
+            if (value != null) {
+                gen.writeNumberField(name, value);
+            }
+        }
+
+        private static void writeNumber(JsonGenerator gen, String name, Integer value) throws IOException {
+            if (value != null) {
+                gen.writeNumberField(name, value);
+            }
+        }
+
+        private static void writeNumber(JsonGenerator gen, String name, Double value) throws IOException {
+            if (value != null) {
+                gen.writeNumberField(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.egovbus.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Driver location update sent to /app/update-location.
+ * Arrives either as JSON or as a binary {@link DriverTelemetryFrame}.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DriverLocationUpdate {
+    private Long busId;
+    private Long sequence;
+    private Double latitude;
+    private Double longitude;
+    private Double speed;       // km/h
+    private Double heading;     // degrees, 0-360
+    private Long deviceTime;    // epoch millis on the device
+}
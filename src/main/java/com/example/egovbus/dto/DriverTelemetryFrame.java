@@ -0,0 +1,85 @@
+package com.example.egovbus.dto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout binary driver telemetry frame (32 bytes, big-endian).
+ *
+ * <pre>
+ * offset size field
+ *  0     1    version (1)
+ *  1     1    flags (bit0 = heading present, bit1 = speed present)
+ *  2     2    heading, 0.1 degree units (unsigned)
+ *  4     4    bus id (unsigned)
+ *  8     4    sequence number (unsigned)
+ * 12     4    latitude  x 1e7 (signed)
+ * 16     4    longitude x 1e7 (signed)
+ * 20     2    speed, 0.1 km/h units (unsigned)
+ * 22     2    reserved (0)
+ * 24     8    device timestamp, epoch millis
+ * </pre>
+ *
+ * Sent with STOMP content-type {@value #CONTENT_TYPE}. SockJS fallback transports
+ * are text-only, so binary frames must use the raw WebSocket endpoint (/ws-bus/websocket).
+ */
+public final class DriverTelemetryFrame {
+
+    public static final String CONTENT_TYPE = "application/vnd.egovbus.telemetry";
+    public static final int LENGTH = 32;
+    public static final int VERSION = 1;
+
+    private static final int FLAG_HEADING = 0x01;
+    private static final int FLAG_SPEED = 0x02;
+    private static final double COORD_SCALE = 1e7;
+
+    private DriverTelemetryFrame() {
+    }
+
+    public static DriverLocationUpdate decode(byte[] bytes) {
+        if (bytes.length < LENGTH) {
+            throw new IllegalArgumentException("Telemetry frame too short: " + bytes.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int version = buffer.get(0) & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported telemetry frame version: " + version);
+        }
+        int flags = buffer.get(1) & 0xFF;
+
+        DriverLocationUpdate update = new DriverLocationUpdate();
+        if ((flags & FLAG_HEADING) != 0) {
+            update.setHeading((buffer.getShort(2) & 0xFFFF) / 10.0);
+        }
+        update.setBusId(buffer.getInt(4) & 0xFFFFFFFFL);
+        update.setSequence(buffer.getInt(8) & 0xFFFFFFFFL);
+        update.setLatitude(buffer.getInt(12) / COORD_SCALE);
+        update.setLongitude(buffer.getInt(16) / COORD_SCALE);
+        if ((flags & FLAG_SPEED) != 0) {
+            update.setSpeed((buffer.getShort(20) & 0xFFFF) / 10.0);
+        }
+        update.setDeviceTime(buffer.getLong(24));
+        return update;
+    }
+
+    public static byte[] encode(DriverLocationUpdate update) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+        int flags = 0;
+        if (update.getHeading() != null) {
+            flags |= FLAG_HEADING;
+        }
+        if (update.getSpeed() != null) {
+            flags |= FLAG_SPEED;
+        }
+        buffer.put((byte) VERSION);
+        buffer.put((byte) flags);
+        buffer.putShort((short) (update.getHeading() != null ? Math.round(update.getHeading() * 10) % 3600 : 0));
+        buffer.putInt((int) update.getBusId().longValue());
+        buffer.putInt(update.getSequence() != null ? (int) update.getSequence().longValue() : 0);
+        buffer.putInt((int) Math.round(update.getLatitude() * COORD_SCALE));
+        buffer.putInt((int) Math.round(update.getLongitude() * COORD_SCALE));
+        buffer.putShort((short) (update.getSpeed() != null ? Math.min(0xFFFF, Math.round(update.getSpeed() * 10)) : 0));
+        buffer.putShort((short) 0);
+        buffer.putLong(update.getDeviceTime() != null ? update.getDeviceTime() : 0L);
+        return buffer.array();
+    }
+}
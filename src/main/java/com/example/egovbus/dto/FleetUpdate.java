@@ -0,0 +1,81 @@
+package com.example.egovbus.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned live fleet message.
+ *
+ * A "snapshot" carries every bus in the feed at {@code version}. A "delta" carries only the buses whose
+ * position, status or load changed between {@code baseVersion} and {@code version}, plus the ids of buses
+ * that left the feed. A client applies a delta only when its baseVersion equals the last version it holds;
+ * otherwise it has missed a message and must resubscribe to the snapshot destination.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = FleetUpdate.Serializer.class)
+public class FleetUpdate {
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private String type;
+    private long version;
+    private long baseVersion;  // 0 for snapshots
+    private List<BusPosition> buses;  // whole feed (snapshot) or changed buses (delta)
+    private List<Long> removed;  // bus ids that left the feed (delta only)
+
+    public static FleetUpdate snapshot(long version, List<BusPosition> buses) {
+        return new FleetUpdate(SNAPSHOT, version, 0, buses, Collections.emptyList());
+    }
+
+    public static FleetUpdate delta(long version, long baseVersion, List<BusPosition> changed, List<Long> removed) {
+        return new FleetUpdate(DELTA, version, baseVersion, changed, removed);
+    }
+
+    /**
+     * Writes the envelope and its positions directly, without bean introspection
+     */
+    public static class Serializer extends StdSerializer<FleetUpdate> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BusPosition.Serializer positionSerializer = new BusPosition.Serializer();
+
+        public Serializer() {
+            super(FleetUpdate.class);
+        }
+
+        @Override
+        public void serialize(FleetUpdate update, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", update.type);
+            gen.writeNumberField("version", update.version);
+            gen.writeNumberField("baseVersion", update.baseVersion);
+            gen.writeArrayFieldStart("buses");
+            if (update.buses != null) {
+                for (BusPosition position : update.buses) {
+                    positionSerializer.serialize(position, gen, provider);
+                }
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("removed");
+            if (update.removed != null) {
+                for (Long busId : update.removed) {
+                    gen.writeNumber(busId);
+                }
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
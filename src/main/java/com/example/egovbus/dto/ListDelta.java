@@ -0,0 +1,30 @@
+package com.example.egovbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ?since= 목록 조회 응답.
+ * full 이 false 면 바뀐 항목과 삭제된 ID 만, 알 수 없는 버전이면 full=true 와 전체 목록을 담는다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListDelta<T> {
+
+    private long version;
+    private boolean full;
+    private List<T> items;
+    private List<Long> removed;
+
+    public static <T> ListDelta<T> full(long version, List<T> items) {
+        return new ListDelta<>(version, true, items, Collections.emptyList());
+    }
+
+    public static <T> ListDelta<T> changes(long version, List<T> changed, List<Long> removed) {
+        return new ListDelta<>(version, false, changed, removed);
+    }
+}
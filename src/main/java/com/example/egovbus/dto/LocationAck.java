@@ -0,0 +1,20 @@
+package com.example.egovbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-driver acknowledgement for a location update,
+ * sent to /queue/driver-{busId}/ack
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationAck {
+    private Long busId;
+    private Long sequence;
+    private String status;
+    private Long serverTime;
+    private String message;
+}
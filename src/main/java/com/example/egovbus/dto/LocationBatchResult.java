@@ -0,0 +1,18 @@
+package com.example.egovbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk location ingest
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationBatchResult {
+    private int accepted;
+    private int rejected;
+    private int busesAdvanced;  // buses whose live position moved to a fix from this batch
+    private int jumpsDiscarded;  // fixes kept in history but not applied live (impossible jump from the previous fix)
+}
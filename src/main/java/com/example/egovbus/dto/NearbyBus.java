@@ -0,0 +1,17 @@
+package com.example.egovbus.dto;
+
+import com.example.egovbus.model.Bus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A bus returned by the nearest-bus query
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyBus {
+    private Bus bus;
+    private double distanceMeters;  // straight-line distance from the query point
+}
@@ -0,0 +1,21 @@
+package com.example.egovbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Predicted arrival of a bus at one downstream stop
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StopArrival {
+    private Long stopId;
+    private String stopName;
+    private int sequence;  // position of the stop on the route (0-based)
+    private double distanceMeters;  // remaining distance along the route shape
+    private long etaSeconds;
+    private LocalDateTime estimatedArrivalTime;
+}
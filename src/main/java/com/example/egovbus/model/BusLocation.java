@@ -1,49 +0,0 @@
-package com.example.egovbus.model;
-
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
-import javax.persistence.*;
-import java.time.LocalDateTime;
-
-/**
- * BusLocation Entity - 버스 위치 히스토리
- */
-@Entity
-@Table(name = "bus_locations")
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class BusLocation {
-    
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    
-    @ManyToOne
-    @JoinColumn(name = "bus_id", nullable = false)
-    private Bus bus;
-    
-    @Column(nullable = false)
-    private Double latitude;
-    
-    @Column(nullable = false)
-    private Double longitude;
-    
-    private Double speed;
-    
-    private Double heading;  // 방향 (0-360도)
-    
-    private LocalDateTime timestamp;
-    
-    private Integer passengers;  // 해당 시점 탑승객 수
-    
-    private String nearestStop;  // 가장 가까운 정류장
-    
-    @PrePersist
-    public void prePersist() {
-        if (timestamp == null) {
-            timestamp = LocalDateTime.now();
-        }
-    }
-}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.egovbus.model;
+
+import com.fasterxml.jackson.databind.util.StdConverter;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import javax.persistence.*;
+
+/**
+ * BusStop Entity - 정류장 (좌표 포함)
+ */
+@Entity
+@Table(name = "bus_stops")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusStop {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(unique = true, nullable = false)
+    private String name;  // 정류장 이름
+    
+    @Column(nullable = false)
+    private Double latitude;  // 위도
+    
+    @Column(nullable = false)
+    private Double longitude;  // 경도
+    
+    public BusStop(String name, Double latitude, Double longitude) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+    
+    /**
+     * 이름만 있는 참조 (노선 요청의 "stops": ["Bole", ...] 형식 호환, JSON 문자열 변환에 사용).
+     * 저장 시 이름으로 정류장을 조회한다.
+     */
+    public static BusStop valueOf(String name) {
+        BusStop stop = new BusStop();
+        stop.setName(name);
+        return stop;
+    }
+    
+    /**
+     * 노선 응답의 정류장을 이름으로 내보낸다 ("stops": ["Bole", ...] 형식 유지)
+     */
+    public static class NameConverter extends StdConverter<BusStop, String> {
+        @Override
+        public String convert(BusStop stop) {
+            return stop.getName();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.egovbus.model;
+
+import lombok.Value;
+
+/**
+ * GeofenceEvent - 버스가 도착 알림 대상 정류장의 지오펜스에 들어오거나 나간 사건
+ */
+@Value
+public class GeofenceEvent {
+
+    public enum Type { ENTER, EXIT }
+
+    Type type;
+
+    Long notificationId;  // 도착 알림 (BUS_ARRIVAL)
+
+    Long busId;
+
+    Long stopId;
+
+    String stopName;
+
+    double distanceMeters;  // 정류장까지 직선 거리
+
+    Integer estimatedMinutes;  // 예상 도착 (분), 예측이 없으면 null
+
+    long timestamp;  // 위치 시각 (epoch millis)
+}
@@ -0,0 +1,49 @@
+package com.example.egovbus.model;
+
+import lombok.Value;
+
+/**
+ * HistoryCursor - 위치 히스토리 키셋 커서 (bus_id, timestamp, id)
+ *
+ * id 는 저장소가 부여하는 값으로, 같은 버스/시각의 위치를 구분하는 용도로만 쓴다.
+ * 문자열 형식: "busId:timestamp:id"
+ */
+@Value
+public class HistoryCursor implements Comparable<HistoryCursor> {
+
+    public static final HistoryCursor START = new HistoryCursor(Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE);
+
+    long busId;
+
+    long timestamp;  // epoch millis
+
+    long id;
+
+    public static HistoryCursor parse(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid history cursor: " + value);
+        }
+        return new HistoryCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    public String encode() {
+        return busId + ":" + timestamp + ":" + id;
+    }
+
+    public static int compare(long busId, long timestamp, long id, HistoryCursor other) {
+        int result = Long.compare(busId, other.busId);
+        if (result == 0) {
+            result = Long.compare(timestamp, other.timestamp);
+        }
+        if (result == 0) {
+            result = Long.compare(id, other.id);
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(HistoryCursor other) {
+        return compare(busId, timestamp, id, other);
+    }
+}
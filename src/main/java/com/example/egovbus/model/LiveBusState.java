@@ -0,0 +1,45 @@
+package com.example.egovbus.model;
+
+import lombok.Builder;
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * LiveBusState - 메모리에 보관되는 버스 실시간 상태 (불변 스냅샷)
+ */
+@Value
+@Builder(toBuilder = true)
+public class LiveBusState {
+
+    Long busId;
+
+    String busNumber;
+
+    Long routeId;
+
+    Integer capacity;
+
+    Double latitude;  // 현재 위도
+
+    Double longitude;  // 현재 경도
+
+    Double speed;  // 현재 속도 (km/h)
+
+    Integer passengers;  // 현재 탑승객 수
+
+    BusStatus status;  // 버스 상태
+
+    LocalDateTime lastUpdated;  // 마지막 업데이트 시간
+
+    StopSnap stopSnap;  // 가장 가까운 정류장 / 다음 정류장 (위치 수신 시 계산)
+
+    Double routeDistance;  // 노선 경로상 선형 위치 (미터, 경로에 대응되지 않으면 null)
+
+    public boolean hasPosition() {
+        return latitude != null && longitude != null;
+    }
+
+    public boolean hasFreeSeats() {
+        return capacity != null && (passengers == null || passengers < capacity);
+    }
+}
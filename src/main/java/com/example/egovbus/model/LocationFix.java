@@ -0,0 +1,36 @@
+package com.example.egovbus.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * LocationFix - 위치 히스토리 한 건 (비동기 일괄 저장용 값 객체)
+ */
+@Value
+@Builder
+public class LocationFix {
+
+    long busId;
+
+    double latitude;
+
+    double longitude;
+
+    Double speed;  // km/h, 알 수 없으면 null
+
+    Double heading;  // 방향 (0-360도), 알 수 없으면 null
+
+    int passengers;  // 해당 시점 탑승객 수
+
+    long timestamp;  // epoch millis
+
+    Long nearestStopId;  // 가장 가까운 정류장 ID, 알 수 없으면 null
+
+    public boolean hasSpeed() {
+        return speed != null;
+    }
+
+    public boolean hasHeading() {
+        return heading != null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.egovbus.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -30,10 +31,16 @@ public class Route {
     
     private String endPoint;  // 종착지
     
-    @ElementCollection
-    @CollectionTable(name = "route_stops", joinColumns = @JoinColumn(name = "route_id"))
-    @Column(name = "stop_name")
-    private List<String> stops;  // 정류장 목록
+    @ManyToMany
+    @JoinTable(name = "route_stop_sequence",
+               joinColumns = @JoinColumn(name = "route_id"),
+               inverseJoinColumns = @JoinColumn(name = "stop_id"))
+    @OrderColumn(name = "stop_order")
+    @JsonSerialize(contentConverter = BusStop.NameConverter.class)
+    private List<BusStop> stops;  // 정류장 목록 (운행 순서, JSON 은 정류장 이름 목록)
+    
+    @Lob
+    private String shape;  // 노선 경로 (encoded polyline, 없으면 정류장을 이은 선)
     
     private Double totalDistance;  // 총 거리 (km)
     
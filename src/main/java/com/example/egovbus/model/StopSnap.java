@@ -0,0 +1,28 @@
+package com.example.egovbus.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * StopSnap - 위치를 정류장에 대응시킨 결과 (가장 가까운 정류장, 노선상 다음 정류장)
+ */
+@Value
+@Builder(toBuilder = true)
+public class StopSnap {
+
+    Long nearestStopId;
+
+    String nearestStopName;
+
+    double nearestStopDistance;  // 미터
+
+    Long nextStopId;  // 노선이 없으면 null
+
+    String nextStopName;
+
+    Integer nextStopSequence;  // 노선 정류장 순서 (0부터)
+
+    double nextStopDistance;  // 미터 (노선 경로상 거리, 경로 위치가 없으면 직선 거리)
+
+    Long nextStopArrivalMillis;  // 다음 정류장 예상 도착 시각 (EtaEngine, epoch millis)
+}
@@ -3,9 +3,11 @@ package com.example.egovbus.repository;
 import com.example.egovbus.model.Bus;
 import com.example.egovbus.model.BusStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +36,14 @@ public interface BusRepository extends JpaRepository<Bus, Long> {
     
     @Query("SELECT COUNT(b) FROM Bus b WHERE b.status = :status")
     Long countByStatus(@Param("status") BusStatus status);
+    
+    @Modifying
+    @Query("UPDATE Bus b SET b.currentLatitude = :latitude, b.currentLongitude = :longitude, " +
+           "b.speed = :speed, b.currentPassengers = :passengers, b.status = :status, " +
+           "b.lastUpdated = :lastUpdated, b.nextStop = COALESCE(:nextStop, b.nextStop) WHERE b.id = :busId")
+    int updateLiveState(@Param("busId") Long busId,
+                        @Param("latitude") Double latitude, @Param("longitude") Double longitude,
+                        @Param("speed") Double speed, @Param("passengers") Integer passengers,
+                        @Param("status") BusStatus status, @Param("lastUpdated") LocalDateTime lastUpdated,
+                        @Param("nextStop") String nextStop);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.BusStop;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * BusStop Repository Interface
+ */
+@Repository
+public interface BusStopRepository extends JpaRepository<BusStop, Long> {
+    
+    Optional<BusStop> findByName(String name);
+}
@@ -0,0 +1,432 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Compressed Location History Store
+ * 버스별 위치를 열린 청크에 모았다가, 청크가 가득 차거나 오래되면(rollover)
+ * TrajectoryCodec 으로 압축해 bus_trajectory_chunks 테이블에 한 행으로 저장한다.
+ *
+ * 조회는 기간과 겹치는 청크만 읽어 디코딩하고, 아직 열린 청크의 위치도 함께 반환한다.
+ * 열린 청크는 메모리에만 있으므로 비정상 종료 시 최대 max-chunk-age 만큼의 위치가 유실될 수 있다.
+ *
+ * 청크 저장은 호출한 쪽과 별개의 트랜잭션으로 커밋하므로, 바깥 트랜잭션이 롤백되어도 메모리에서 꺼낸 위치는 남는다.
+ * 저장이 실패한 청크는 메모리에 두고 조회에 계속 포함하며, 다음 seal-interval 에 다시 저장한다.
+ * flush() 가 예외 없이 반환되면 해당 버스의 위치는 저장된 것이다 (일괄 수신 경로).
+ *
+ * 청크 ID는 청크를 열 때 미리 정하고, 열린 청크는 시각 순서를 유지하며 위치를 끼워 넣는다 (같은 시각은 도착 순).
+ * 따라서 레코드 ID (청크 ID, 청크 내 위치) 는 청크가 저장된 뒤에도 바뀌지 않는다.
+ */
+@Repository
+@ConditionalOnProperty(name = "bus.monitoring.history.backend", havingValue = "compressed")
+@Slf4j
+public class CompressedLocationHistoryStore implements LocationHistoryStore {
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS bus_trajectory_chunks (" +
+        "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+        "bus_id BIGINT NOT NULL, " +
+        "start_ts BIGINT NOT NULL, " +
+        "end_ts BIGINT NOT NULL, " +
+        "point_count INT NOT NULL, " +
+        "data VARBINARY NOT NULL)";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_bus_trajectory_chunks_bus_ts ON bus_trajectory_chunks (bus_id, start_ts)";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO bus_trajectory_chunks (id, bus_id, start_ts, end_ts, point_count, data) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_MAX_ID_SQL =
+        "SELECT COALESCE(MAX(id), 0) FROM bus_trajectory_chunks";
+
+    private static final String SELECT_RANGE_SQL =
+        "SELECT id, bus_id, data FROM bus_trajectory_chunks " +
+        "WHERE bus_id = ? AND start_ts <= ? AND end_ts >= ?";
+
+    private static final String SELECT_SINCE_SQL =
+        "SELECT id, bus_id, data FROM bus_trajectory_chunks WHERE end_ts >= ? ORDER BY start_ts";
+
+    private static final String SELECT_BUSES_SQL =
+        "SELECT DISTINCT bus_id FROM bus_trajectory_chunks WHERE bus_id >= ? AND start_ts <= ? AND end_ts >= ?";
+
+    private static final String SELECT_BUS_CHUNKS_SQL =
+        "SELECT id, bus_id, data FROM bus_trajectory_chunks WHERE bus_id = ? AND start_ts <= ? AND end_ts >= ?";
+
+    private static final String DELETE_BEFORE_SQL =
+        "DELETE FROM bus_trajectory_chunks WHERE end_ts < ?";
+
+    private static final int RAW_BYTES_PER_FIX = 64;  // bus_id, 위도/경도, 속도, 방향, 시각, 탑승객, 정류장
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate sealTransaction;
+    private final int chunkSize;
+    private final long maxChunkAgeMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // 버스별 열린 청크
+    private final Map<Long, OpenChunk> openChunks = new ConcurrentHashMap<>();
+
+    // 닫았지만 아직 커밋되지 않은 청크 (저장 중이거나 저장 실패, 청크 ID -> 청크)
+    private final Map<Long, OpenChunk> sealing = new ConcurrentHashMap<>();
+
+    // 마지막으로 정한 청크 ID
+    private final AtomicLong lastChunkId = new AtomicLong();
+
+    private final Counter sealedCounter;
+    private final Counter encodedBytesCounter;
+    private final Counter encodedFixesCounter;
+    private final Counter sealFailedCounter;
+
+    public CompressedLocationHistoryStore(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${bus.monitoring.history.compressed.chunk-size:360}") int chunkSize,
+                                          @Value("${bus.monitoring.history.compressed.max-chunk-age:3600000}") long maxChunkAgeMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sealTransaction = new TransactionTemplate(transactionManager);
+        this.sealTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 청크 내 위치는 레코드 ID의 하위 16비트에 담긴다
+        this.chunkSize = Math.min(chunkSize, 0xFFFF);
+        this.maxChunkAgeMillis = maxChunkAgeMillis;
+
+        this.sealedCounter = Counter.builder("bus.history.chunks.sealed").register(meterRegistry);
+        this.encodedBytesCounter = Counter.builder("bus.history.chunks.bytes")
+            .description("Encoded size of sealed trajectory chunks")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.encodedFixesCounter = Counter.builder("bus.history.chunks.fixes").register(meterRegistry);
+        this.sealFailedCounter = Counter.builder("bus.history.chunks.seal.failures")
+            .description("Trajectory chunk inserts that failed and were kept in memory for retry")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        Long maxId = jdbcTemplate.queryForObject(SELECT_MAX_ID_SQL, Long.class);
+        lastChunkId.set(maxId != null ? maxId : 0);
+    }
+
+    @Override
+    public void append(List<LocationFix> fixes) {
+        List<OpenChunk> full = new ArrayList<>();
+        for (LocationFix fix : fixes) {
+            openChunks.compute(fix.getBusId(), (busId, chunk) -> {
+                OpenChunk current = chunk != null ? chunk : new OpenChunk(lastChunkId.incrementAndGet(), chunkSize);
+                current.add(fix);
+                if (current.fixes.size() >= chunkSize) {
+                    sealing.put(current.id, current);
+                    full.add(current);
+                    return null;
+                }
+                return current;
+            });
+        }
+        full.forEach(this::seal);
+    }
+
+    /**
+     * 해당 버스의 열린 청크를 바로 저장 (별도 트랜잭션으로 커밋, 저장하지 못한 청크가 있으면 예외)
+     */
+    @Override
+    public void flush(Collection<Long> busIds) {
+        int failed = 0;
+        for (Long busId : busIds) {
+            OpenChunk chunk = close(busId, open -> true);
+            if (chunk != null && !seal(chunk)) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException("Failed to store " + failed + " trajectory chunks, kept in memory for retry");
+        }
+    }
+
+    /**
+     * 버스별 기간 조회 (최신순)
+     */
+    @Override
+    public List<LocationFix> findByBusAndTimeRange(Long busId, LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocationFix> result = new ArrayList<>();
+        if (startTime.isAfter(endTime)) {
+            return result;
+        }
+        long from = startTime.atZone(zone).toInstant().toEpochMilli();
+        long to = endTime.atZone(zone).toInstant().toEpochMilli();
+        Consumer<LocationFix> collector = fix -> {
+            if (fix.getTimestamp() >= from && fix.getTimestamp() <= to) {
+                result.add(fix);
+            }
+        };
+
+        List<OpenChunk> unsaved = unsaved(busId);
+        jdbcTemplate.query(SELECT_RANGE_SQL, decoding(collector, ids(unsaved)), busId, to, from);
+        unsaved.forEach(chunk -> chunk.fixes.forEach(collector));
+
+        result.sort(Comparator.comparingLong(LocationFix::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * 키셋 페이지 조회. 레코드 ID는 (청크 ID, 청크 내 위치)이며, 버스 ID 순으로 청크를 하나씩 디코딩한다.
+     */
+    @Override
+    public int scan(HistoryCursor after, LocalDateTime startTime, LocalDateTime endTime, Long busId, int limit,
+                    BiConsumer<HistoryCursor, LocationFix> consumer) {
+        if (startTime.isAfter(endTime)) {
+            return 0;
+        }
+        long from = startTime.atZone(zone).toInstant().toEpochMilli();
+        long to = endTime.atZone(zone).toInstant().toEpochMilli();
+
+        TreeSet<Long> buses = new TreeSet<>();
+        if (busId != null) {
+            buses.add(busId);
+        } else {
+            buses.addAll(jdbcTemplate.queryForList(SELECT_BUSES_SQL, Long.class, after.getBusId(), to, from));
+            buses.addAll(openChunks.keySet());
+            sealing.values().forEach(chunk -> buses.add(chunk.busId()));
+        }
+
+        KeysetCollector collector = new KeysetCollector(after, limit);
+        for (Long bus : buses.tailSet(after.getBusId(), true)) {
+            List<OpenChunk> unsaved = unsaved(bus);
+            Set<Long> unsavedIds = ids(unsaved);
+            jdbcTemplate.query(SELECT_BUS_CHUNKS_SQL, rs -> {
+                long chunkId = rs.getLong("id");
+                if (unsavedIds.contains(chunkId)) {
+                    return;
+                }
+                List<LocationFix> fixes = TrajectoryCodec.decode(rs.getLong("bus_id"), rs.getBytes("data"));
+                for (int i = 0; i < fixes.size(); i++) {
+                    collectInRange(collector, fixes.get(i), (chunkId << 16) | i, from, to);
+                }
+            }, bus, to, from);
+
+            for (OpenChunk open : unsaved) {
+                for (int i = 0; i < open.fixes.size(); i++) {
+                    collectInRange(collector, open.fixes.get(i), (open.id << 16) | i, from, to);
+                }
+            }
+            if (collector.isFull()) {
+                break;
+            }
+        }
+        return collector.drainTo(consumer);
+    }
+
+    private static void collectInRange(KeysetCollector collector, LocationFix fix, long id, long from, long to) {
+        if (fix.getTimestamp() >= from && fix.getTimestamp() <= to
+                && collector.accepts(fix.getBusId(), fix.getTimestamp(), id)) {
+            collector.add(id, fix);
+        }
+    }
+
+    @Override
+    public void replay(long sinceMillis, Consumer<LocationFix> consumer) {
+        Consumer<LocationFix> filter = fix -> {
+            if (fix.getTimestamp() >= sinceMillis) {
+                consumer.accept(fix);
+            }
+        };
+        List<OpenChunk> unsaved = new ArrayList<>(sealing.values());
+        for (Long busId : openChunks.keySet()) {
+            OpenChunk open = openChunk(busId);
+            if (open != null) {
+                unsaved.add(open);
+            }
+        }
+        jdbcTemplate.query(SELECT_SINCE_SQL, decoding(filter, ids(unsaved)), sinceMillis);
+        unsaved.forEach(chunk -> chunk.fixes.forEach(filter));
+    }
+
+    /**
+     * 기준일 이전에 끝난 청크 삭제. 삭제된 청크 수를 반환한다.
+     */
+    @Override
+    public int purgeBefore(LocalDate cutoff) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, cutoff.atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    /**
+     * 저장하지 못한 청크를 다시 저장하고, 오래된 열린 청크를 닫아 메모리에 머무는 시간을 제한한다
+     */
+    @Scheduled(fixedDelayString = "${bus.monitoring.history.compressed.seal-interval:60000}")
+    public void sealExpiredChunks() {
+        new ArrayList<>(sealing.values()).forEach(this::seal);
+        long now = System.currentTimeMillis();
+        for (Long busId : openChunks.keySet()) {
+            OpenChunk expired = close(busId, chunk -> now - chunk.openedAt >= maxChunkAgeMillis);
+            if (expired != null) {
+                seal(expired);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Long busId : new ArrayList<>(openChunks.keySet())) {
+            close(busId, chunk -> true);
+        }
+        new ArrayList<>(sealing.values()).forEach(this::seal);
+        if (!sealing.isEmpty()) {
+            log.error("Lost {} unsaved trajectory chunks at shutdown", sealing.size());
+        }
+    }
+
+    // DB 행 디코딩 (메모리에 아직 있는 청크는 건너뛴다)
+    private static RowCallbackHandler decoding(Consumer<LocationFix> consumer, Set<Long> skipIds) {
+        return rs -> {
+            if (!skipIds.contains(rs.getLong("id"))) {
+                TrajectoryCodec.decode(rs.getLong("bus_id"), rs.getBytes("data")).forEach(consumer);
+            }
+        };
+    }
+
+    // 열린 청크를 닫아 저장 대기로 옮긴다 (조건에 맞지 않거나 없으면 null)
+    private OpenChunk close(Long busId, Predicate<OpenChunk> condition) {
+        OpenChunk[] closed = new OpenChunk[1];
+        openChunks.computeIfPresent(busId, (id, chunk) -> {
+            if (!condition.test(chunk)) {
+                return chunk;
+            }
+            sealing.put(chunk.id, chunk);
+            closed[0] = chunk;
+            return null;
+        });
+        return closed[0];
+    }
+
+    // 버스의 아직 저장되지 않은 청크 (저장 대기 + 열린 청크 복사본). DB 조회보다 먼저 모아야 빠지는 청크가 없다.
+    private List<OpenChunk> unsaved(Long busId) {
+        List<OpenChunk> chunks = new ArrayList<>();
+        for (OpenChunk chunk : sealing.values()) {
+            if (chunk.busId() == busId) {
+                chunks.add(chunk);
+            }
+        }
+        OpenChunk open = openChunk(busId);
+        if (open != null) {
+            chunks.add(open);
+        }
+        return chunks;
+    }
+
+    private static Set<Long> ids(List<OpenChunk> chunks) {
+        Set<Long> ids = new HashSet<>();
+        chunks.forEach(chunk -> ids.add(chunk.id));
+        return ids;
+    }
+
+    // 열린 청크 복사본 (없으면 null)
+    private OpenChunk openChunk(Long busId) {
+        OpenChunk[] copy = new OpenChunk[1];
+        openChunks.computeIfPresent(busId, (id, chunk) -> {
+            copy[0] = chunk.copy();
+            return chunk;
+        });
+        return copy[0];
+    }
+
+    // 저장 대기 청크를 별도 트랜잭션으로 저장 (실패하면 저장 대기에 남기고 false)
+    private boolean seal(OpenChunk chunk) {
+        List<LocationFix> fixes = chunk.fixes;
+        LocationFix first = fixes.get(0);
+        LocationFix last = fixes.get(fixes.size() - 1);
+        byte[] data = TrajectoryCodec.encode(fixes);
+
+        try {
+            sealTransaction.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, chunk.id, first.getBusId(),
+                first.getTimestamp(), last.getTimestamp(), fixes.size(), data));
+        } catch (DuplicateKeyException e) {
+            // 청크 ID는 미리 정해지므로, 커밋 응답만 실패했던 청크를 다시 저장하려 한 경우다
+            log.debug("Trajectory chunk {} was already stored", chunk.id);
+            sealing.remove(chunk.id);
+            return true;
+        } catch (RuntimeException e) {
+            sealFailedCounter.increment();
+            log.warn("Failed to store trajectory chunk {} for bus {}, keeping it for retry: {}", chunk.id,
+                first.getBusId(), e.getMessage());
+            return false;
+        }
+        sealing.remove(chunk.id);
+
+        sealedCounter.increment();
+        encodedBytesCounter.increment(data.length);
+        encodedFixesCounter.increment(fixes.size());
+        log.debug("Sealed trajectory chunk {} for bus {}: {} fixes, {} bytes ({}x)", chunk.id, first.getBusId(),
+            fixes.size(), data.length, fixes.size() * RAW_BYTES_PER_FIX / Math.max(1, data.length));
+        return true;
+    }
+
+    /**
+     * 아직 저장되지 않은 청크. 위치는 항상 시각 순이다 (같은 시각은 도착 순).
+     */
+    private static final class OpenChunk {
+
+        final long id;
+        final long openedAt = System.currentTimeMillis();
+        final List<LocationFix> fixes;
+
+        OpenChunk(long id, int capacity) {
+            this.id = id;
+            this.fixes = new ArrayList<>(capacity);
+        }
+
+        private OpenChunk(long id, List<LocationFix> fixes) {
+            this.id = id;
+            this.fixes = fixes;
+        }
+
+        long busId() {
+            return fixes.get(0).getBusId();
+        }
+
+        void add(LocationFix fix) {
+            // 시각이 같거나 앞선 위치 뒤에 끼워 넣는다 (대부분 맨 뒤)
+            int index = fixes.size();
+            while (index > 0 && fixes.get(index - 1).getTimestamp() > fix.getTimestamp()) {
+                index--;
+            }
+            fixes.add(index, fix);
+        }
+
+        OpenChunk copy() {
+            return new OpenChunk(id, new ArrayList<>(fixes));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC Location History Store
+ * 위치 히스토리를 일자별 테이블(bus_locations_yyyyMMdd)에 저장한다.
+ *
+ * 조회는 요청 기간에 해당하는 테이블만 읽고, 보존 기간이 지난 데이터는 테이블 단위로 DROP 한다.
+ * IDENTITY 키로 인해 Hibernate 배치가 불가능하므로 JDBC 배치 INSERT를 사용한다.
+ */
+@Repository
+@ConditionalOnProperty(name = "bus.monitoring.history.backend", havingValue = "jdbc", matchIfMissing = true)
+@Slf4j
+public class JdbcLocationHistoryStore implements LocationHistoryStore {
+
+    private static final String TABLE_PREFIX = "bus_locations_";
+    private static final Pattern TABLE_PATTERN = Pattern.compile("(?i)bus_locations_(\\d{8})");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS %s (" +
+        "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+        "bus_id BIGINT NOT NULL, " +
+        "latitude DOUBLE NOT NULL, " +
+        "longitude DOUBLE NOT NULL, " +
+        "speed DOUBLE, " +
+        "heading DOUBLE, " +
+        "timestamp TIMESTAMP NOT NULL, " +
+        "passengers INT, " +
+        "nearest_stop_id BIGINT)";
+
+    // 정류장 컬럼 이전에 만든 파티션 보완
+    private static final String ADD_STOP_COLUMN_SQL =
+        "ALTER TABLE %s ADD COLUMN IF NOT EXISTS nearest_stop_id BIGINT";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_%1$s_bus_ts ON %1$s (bus_id, timestamp)";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO %s (bus_id, latitude, longitude, speed, heading, timestamp, passengers, nearest_stop_id) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_RANGE_SQL =
+        "SELECT bus_id, latitude, longitude, speed, heading, timestamp, passengers, nearest_stop_id FROM %s " +
+        "WHERE bus_id = ? AND timestamp BETWEEN ? AND ? ORDER BY timestamp DESC";
+
+    private static final String SELECT_SINCE_SQL =
+        "SELECT bus_id, latitude, longitude, speed, heading, timestamp, passengers, nearest_stop_id FROM %s " +
+        "WHERE timestamp >= ? ORDER BY timestamp";
+
+    private static final String SELECT_PAGE_SQL =
+        "SELECT id, bus_id, latitude, longitude, speed, heading, timestamp, passengers, nearest_stop_id FROM %s " +
+        "WHERE timestamp BETWEEN ? AND ? AND %s " +
+        "AND (bus_id > ? OR (bus_id = ? AND (timestamp > ? OR (timestamp = ? AND id > ?)))) " +
+        "ORDER BY bus_id, timestamp, id LIMIT ?";
+
+    private static final RowMapper<LocationFix> FIX_MAPPER = (rs, rowNum) -> {
+        Double speed = rs.getDouble("speed");
+        if (rs.wasNull()) {
+            speed = null;
+        }
+        Double heading = rs.getDouble("heading");
+        if (rs.wasNull()) {
+            heading = null;
+        }
+        Long nearestStopId = rs.getLong("nearest_stop_id");
+        if (rs.wasNull()) {
+            nearestStopId = null;
+        }
+        return LocationFix.builder()
+            .busId(rs.getLong("bus_id"))
+            .latitude(rs.getDouble("latitude"))
+            .longitude(rs.getDouble("longitude"))
+            .speed(speed)
+            .heading(heading)
+            .passengers(rs.getInt("passengers"))
+            .timestamp(rs.getTimestamp("timestamp").getTime())
+            .nearestStopId(nearestStopId)
+            .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // 존재하는 일자 파티션
+    private final NavigableSet<LocalDate> partitions = new ConcurrentSkipListSet<>();
+
+    public JdbcLocationHistoryStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // DDL은 암묵적 커밋을 일으키므로 호출한 트랜잭션과 분리한다
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 기존 파티션 테이블 탐색
+     */
+    @PostConstruct
+    public void discoverPartitions() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(null, null, "%", new String[] {"TABLE"})) {
+                while (tables.next()) {
+                    Matcher matcher = TABLE_PATTERN.matcher(tables.getString("TABLE_NAME"));
+                    if (matcher.matches()) {
+                        partitions.add(LocalDate.parse(matcher.group(1), DAY_FORMAT));
+                    }
+                }
+            }
+            return null;
+        });
+        for (LocalDate day : partitions) {
+            String table = tableName(day);
+            ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute(String.format(ADD_STOP_COLUMN_SQL, table)));
+        }
+        log.info("Found {} location history partitions", partitions.size());
+    }
+
+    /**
+     * 일자 파티션 생성 (없을 때만)
+     */
+    @Override
+    public void prepare(LocalDate day) {
+        if (partitions.contains(day)) {
+            return;
+        }
+        String table = tableName(day);
+        ddlTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute(String.format(CREATE_TABLE_SQL, table));
+            jdbcTemplate.execute(String.format(CREATE_INDEX_SQL, table));
+        });
+        partitions.add(day);
+        log.info("Created location history partition {}", table);
+    }
+
+    /**
+     * 위치 히스토리 일괄 저장 (일자별 파티션으로 분배)
+     */
+    @Override
+    public void append(List<LocationFix> fixes) {
+        Map<LocalDate, List<LocationFix>> byDay = new TreeMap<>();
+        for (LocationFix fix : fixes) {
+            byDay.computeIfAbsent(dayOf(fix.getTimestamp()), day -> new ArrayList<>()).add(fix);
+        }
+
+        byDay.forEach((day, dayFixes) -> {
+            prepare(day);
+            jdbcTemplate.batchUpdate(String.format(INSERT_SQL, tableName(day)), dayFixes, dayFixes.size(), (ps, fix) -> {
+                ps.setLong(1, fix.getBusId());
+                ps.setDouble(2, fix.getLatitude());
+                ps.setDouble(3, fix.getLongitude());
+                if (fix.hasSpeed()) {
+                    ps.setDouble(4, fix.getSpeed());
+                } else {
+                    ps.setNull(4, Types.DOUBLE);
+                }
+                if (fix.hasHeading()) {
+                    ps.setDouble(5, fix.getHeading());
+                } else {
+                    ps.setNull(5, Types.DOUBLE);
+                }
+                ps.setTimestamp(6, new Timestamp(fix.getTimestamp()));
+                ps.setInt(7, fix.getPassengers());
+                if (fix.getNearestStopId() != null) {
+                    ps.setLong(8, fix.getNearestStopId());
+                } else {
+                    ps.setNull(8, Types.BIGINT);
+                }
+            });
+        });
+    }
+
+    /**
+     * 버스별 기간 조회 (최신순). 기간에 해당하는 파티션만 조회한다.
+     */
+    @Override
+    public List<LocationFix> findByBusAndTimeRange(Long busId, LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocationFix> result = new ArrayList<>();
+        if (startTime.isAfter(endTime)) {
+            return result;
+        }
+        Timestamp start = Timestamp.valueOf(startTime);
+        Timestamp end = Timestamp.valueOf(endTime);
+
+        for (LocalDate day : partitions.subSet(startTime.toLocalDate(), true, endTime.toLocalDate(), true)
+                .descendingSet()) {
+            result.addAll(jdbcTemplate.query(String.format(SELECT_RANGE_SQL, tableName(day)),
+                FIX_MAPPER, busId, start, end));
+        }
+        return result;
+    }
+
+    /**
+     * 키셋 페이지 조회. 기간에 해당하는 파티션마다 커서 이후 limit 건을 읽어 합친다.
+     */
+    @Override
+    public int scan(HistoryCursor after, LocalDateTime startTime, LocalDateTime endTime, Long busId, int limit,
+                    BiConsumer<HistoryCursor, LocationFix> consumer) {
+        if (startTime.isAfter(endTime)) {
+            return 0;
+        }
+        KeysetCollector collector = new KeysetCollector(after, limit);
+        String busFilter = busId != null ? "bus_id = " + busId.longValue() : "TRUE";
+        Timestamp afterTimestamp = new Timestamp(Math.max(after.getTimestamp(), 0));
+
+        for (LocalDate day : partitions.subSet(startTime.toLocalDate(), true, endTime.toLocalDate(), true)) {
+            jdbcTemplate.query(String.format(SELECT_PAGE_SQL, tableName(day), busFilter), rs -> {
+                long id = rs.getLong("id");
+                LocationFix fix = FIX_MAPPER.mapRow(rs, 0);
+                if (collector.accepts(fix.getBusId(), fix.getTimestamp(), id)) {
+                    collector.add(id, fix);
+                }
+            }, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime),
+                after.getBusId(), after.getBusId(), afterTimestamp, afterTimestamp, after.getId(), limit);
+        }
+        return collector.drainTo(consumer);
+    }
+
+    @Override
+    public void replay(long sinceMillis, Consumer<LocationFix> consumer) {
+        Timestamp since = new Timestamp(sinceMillis);
+        RowCallbackHandler handler = rs -> consumer.accept(FIX_MAPPER.mapRow(rs, 0));
+        for (LocalDate day : partitions.tailSet(dayOf(sinceMillis), true)) {
+            jdbcTemplate.query(String.format(SELECT_SINCE_SQL, tableName(day)), handler, since);
+        }
+    }
+
+    /**
+     * 기준일 이전 파티션 삭제
+     */
+    @Override
+    public int purgeBefore(LocalDate cutoff) {
+        List<LocalDate> expired = new ArrayList<>(partitions.headSet(cutoff, false));
+        expired.sort(Comparator.naturalOrder());
+        for (LocalDate day : expired) {
+            String table = tableName(day);
+            ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + table));
+            partitions.remove(day);
+            log.info("Dropped location history partition {}", table);
+        }
+        return expired.size();
+    }
+
+    public NavigableSet<LocalDate> getPartitions() {
+        return Collections.unmodifiableNavigableSet(partitions);
+    }
+
+    private LocalDate dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+    }
+
+    private static String tableName(LocalDate day) {
+        return TABLE_PREFIX + day.format(DAY_FORMAT);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * 키셋 페이지 수집기.
+ * 커서 이후의 위치 중 (bus_id, timestamp, id) 순으로 가장 작은 limit 건만 유지하므로
+ * 입력 순서와 관계없이 메모리는 페이지 크기로 제한된다.
+ */
+final class KeysetCollector {
+
+    private final HistoryCursor after;
+    private final int limit;
+    private final PriorityQueue<Entry> largestFirst =
+        new PriorityQueue<>(Comparator.comparing((Entry entry) -> entry.cursor).reversed());
+
+    KeysetCollector(HistoryCursor after, int limit) {
+        this.after = after;
+        this.limit = limit;
+    }
+
+    /**
+     * 해당 키가 현재 페이지에 들어갈 수 있는지 (객체 생성 전에 확인)
+     */
+    boolean accepts(long busId, long timestamp, long id) {
+        if (HistoryCursor.compare(busId, timestamp, id, after) <= 0) {
+            return false;
+        }
+        return largestFirst.size() < limit
+            || HistoryCursor.compare(busId, timestamp, id, largestFirst.peek().cursor) < 0;
+    }
+
+    void add(long id, LocationFix fix) {
+        largestFirst.add(new Entry(new HistoryCursor(fix.getBusId(), fix.getTimestamp(), id), fix));
+        if (largestFirst.size() > limit) {
+            largestFirst.poll();
+        }
+    }
+
+    /**
+     * 페이지가 찼으면 더 큰 버스 ID는 볼 필요가 없다
+     */
+    boolean isFull() {
+        return largestFirst.size() >= limit;
+    }
+
+    int drainTo(BiConsumer<HistoryCursor, LocationFix> consumer) {
+        List<Entry> entries = new ArrayList<>(largestFirst);
+        largestFirst.clear();
+        entries.sort(Comparator.comparing(entry -> entry.cursor));
+        entries.forEach(entry -> consumer.accept(entry.cursor, entry.fix));
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        final HistoryCursor cursor;
+        final LocationFix fix;
+
+        Entry(HistoryCursor cursor, LocationFix fix) {
+            this.cursor = cursor;
+            this.fix = fix;
+        }
+    }
+}
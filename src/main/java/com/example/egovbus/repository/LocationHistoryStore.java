@@ -0,0 +1,74 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Location History Store
+ * 위치 히스토리의 단일 저장소 (기록 단위: LocationFix). bus.monitoring.history.backend 로 구현체를 선택한다.
+ *
+ * <ul>
+ *   <li>jdbc - 일자별 테이블 (기본값)</li>
+ *   <li>mmap - 메모리 매핑 세그먼트 파일에 고정 길이 레코드 추가</li>
+ *   <li>compressed - 버스별 청크를 delta-of-delta/XOR 로 압축해 저장</li>
+ * </ul>
+ */
+public interface LocationHistoryStore {
+
+    /**
+     * 위치 히스토리 일괄 저장
+     */
+    void append(List<LocationFix> fixes);
+
+    /**
+     * 메모리에 모아 둔 해당 버스의 위치를 바로 저장 (예외 없이 반환되면 저장된 것이다).
+     * append 시점에 저장되는 구현체는 할 일이 없다.
+     */
+    default void flush(Collection<Long> busIds) {
+    }
+
+    /**
+     * 버스별 기간 조회 (최신순)
+     */
+    List<LocationFix> findByBusAndTimeRange(Long busId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 버스의 최근 궤적 (최신순). 모든 구현체에서 (bus_id, timestamp) 인덱스 구간 조회로 처리된다.
+     */
+    default List<LocationFix> findRecent(Long busId, long sinceMillis) {
+        ZoneId zone = ZoneId.systemDefault();
+        return findByBusAndTimeRange(busId,
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(sinceMillis), zone), LocalDateTime.now(zone));
+    }
+
+    /**
+     * 키셋 페이지 조회. after 다음 위치부터 (bus_id, timestamp, id) 순으로 최대 limit 건을 전달하고 건수를 반환한다.
+     * busId 가 null 이면 전체 버스를 대상으로 한다.
+     */
+    int scan(HistoryCursor after, LocalDateTime startTime, LocalDateTime endTime, Long busId, int limit,
+             BiConsumer<HistoryCursor, LocationFix> consumer);
+
+    /**
+     * 기준 시각 이후의 전체 위치를 저장 순서대로 전달 (기동 시 최근 궤적 복원용)
+     */
+    void replay(long sinceMillis, Consumer<LocationFix> consumer);
+
+    /**
+     * 기준일 이전 데이터 삭제. 삭제된 단위(일자 파티션, 세그먼트 일자, 청크) 수를 반환한다.
+     */
+    int purgeBefore(LocalDate cutoff);
+
+    /**
+     * 해당 일자 저장 공간을 미리 준비
+     */
+    default void prepare(LocalDate day) {
+    }
+}
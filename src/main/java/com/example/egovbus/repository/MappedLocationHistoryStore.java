@@ -0,0 +1,469 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory-mapped Location History Store
+ * 위치 히스토리를 일자별 세그먼트 파일(trajectory-yyyyMMdd-NNNN.seg)에 고정 길이 레코드로 추가한다.
+ *
+ * 레코드 형식 (40 bytes, big-endian):
+ * <pre>
+ *  0  int64  timestamp (epoch millis)
+ *  8  int32  busId
+ * 12  int32  latitude  x 1e7
+ * 16  int32  longitude x 1e7
+ * 20  uint16 speed x 10 (km/h, 0xFFFF = 알 수 없음)
+ * 22  uint16 heading x 10 (0xFFFF = 알 수 없음)
+ * 24  uint16 passengers
+ * 26  uint16 reserved
+ * 28  int64  nearest stop id (0 = 알 수 없음)
+ * 36  int32  commit marker - 마지막에 기록되며, 기동 시 이 값이 없는 레코드에서 복원을 멈춘다
+ * </pre>
+ *
+ * 정류장 ID가 없던 이전 형식 (32 bytes, 26 은 reserved, 28 에 "BUS1" marker) 의 세그먼트는
+ * 읽기만 하고 더 추가하지 않는다 (그 일자의 새 위치는 다음 세그먼트에 기록).
+ *
+ * 세그먼트마다 버스별 희소 인덱스(첫/마지막 레코드, 시간 범위, 64건마다 체크포인트)를 두어
+ * 버스/기간 조회는 해당 구간만 순차 스캔하며, 조건에 맞는 레코드만 객체로 만든다.
+ * 인덱스는 메모리에만 있고 기동 시 세그먼트를 다시 읽어 재구성한다.
+ */
+@Repository
+@ConditionalOnProperty(name = "bus.monitoring.history.backend", havingValue = "mmap")
+@Slf4j
+public class MappedLocationHistoryStore implements LocationHistoryStore {
+
+    static final int RECORD_SIZE = 40;
+    static final int LEGACY_RECORD_SIZE = 32;
+
+    private static final int COMMIT_MARKER = 0x42555332;  // "BUS2"
+    private static final int LEGACY_COMMIT_MARKER = 0x42555331;  // "BUS1"
+    private static final int NO_SPEED = 0xFFFF;
+    private static final int NO_HEADING = 0xFFFF;
+    private static final long NO_STOP = 0;
+    private static final int MAX_UNSIGNED_SHORT = 0xFFFF;
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final int CHECKPOINT_INTERVAL = 64;
+
+    private static final Pattern FILE_PATTERN = Pattern.compile("trajectory-(\\d{8})-(\\d{4})\\.seg");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // 일자별 세그먼트 목록
+    private final NavigableMap<LocalDate, DayLog> days = new ConcurrentSkipListMap<>();
+
+    public MappedLocationHistoryStore(@Value("${bus.monitoring.history.mmap.directory:./data/history}") String directory,
+                                      @Value("${bus.monitoring.history.mmap.segment-size-mb:64}") int segmentSizeMb) {
+        this.directory = Paths.get(directory);
+        this.segmentRecords = (int) ((long) segmentSizeMb * 1024 * 1024 / RECORD_SIZE);
+    }
+
+    /**
+     * 기존 세그먼트를 매핑하고 레코드를 다시 읽어 인덱스를 재구성
+     */
+    @PostConstruct
+    public void open() {
+        Map<LocalDate, TreeMap<Integer, Path>> found = new TreeMap<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "trajectory-*.seg")) {
+                for (Path file : files) {
+                    Matcher matcher = FILE_PATTERN.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        found.computeIfAbsent(LocalDate.parse(matcher.group(1), DAY_FORMAT), day -> new TreeMap<>())
+                            .put(Integer.parseInt(matcher.group(2)), file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open location history directory " + directory, e);
+        }
+
+        long records = 0;
+        for (Map.Entry<LocalDate, TreeMap<Integer, Path>> entry : found.entrySet()) {
+            DayLog dayLog = new DayLog(entry.getKey());
+            for (Map.Entry<Integer, Path> file : entry.getValue().entrySet()) {
+                Segment segment = new Segment(file.getValue(), file.getKey(), false);
+                dayLog.segments.add(segment);
+                records += segment.count;
+            }
+            days.put(entry.getKey(), dayLog);
+        }
+        log.info("Opened mapped location history at {}: {} days, {} records", directory, days.size(), records);
+    }
+
+    @PreDestroy
+    public void close() {
+        days.values().forEach(dayLog -> dayLog.segments.forEach(segment -> segment.buffer.force()));
+    }
+
+    @Override
+    public synchronized void append(List<LocationFix> fixes) {
+        for (LocationFix fix : fixes) {
+            days.computeIfAbsent(dayOf(fix.getTimestamp()), DayLog::new).writable().write(fix);
+        }
+    }
+
+    /**
+     * 버스별 기간 조회 (최신순). 버스가 기간 안에 기록된 세그먼트 구간만 스캔한다.
+     */
+    @Override
+    public List<LocationFix> findByBusAndTimeRange(Long busId, LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocationFix> result = new ArrayList<>();
+        if (startTime.isAfter(endTime)) {
+            return result;
+        }
+        long from = startTime.atZone(zone).toInstant().toEpochMilli();
+        long to = endTime.atZone(zone).toInstant().toEpochMilli();
+
+        for (DayLog dayLog : days.subMap(startTime.toLocalDate(), true, endTime.toLocalDate(), true).values()) {
+            for (Segment segment : dayLog.segments) {
+                segment.scan(busId.intValue(), from, to, result::add);
+            }
+        }
+        result.sort(Comparator.comparingLong(LocationFix::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * 키셋 페이지 조회. 버스 ID 순으로 각 버스의 인덱스 구간만 스캔하고, 페이지가 차면 멈춘다.
+     */
+    @Override
+    public int scan(HistoryCursor after, LocalDateTime startTime, LocalDateTime endTime, Long busId, int limit,
+                    BiConsumer<HistoryCursor, LocationFix> consumer) {
+        if (startTime.isAfter(endTime)) {
+            return 0;
+        }
+        long from = startTime.atZone(zone).toInstant().toEpochMilli();
+        long to = endTime.atZone(zone).toInstant().toEpochMilli();
+        Map<LocalDate, DayLog> range = days.subMap(startTime.toLocalDate(), true, endTime.toLocalDate(), true);
+
+        TreeSet<Integer> buses = new TreeSet<>();
+        if (busId != null) {
+            buses.add(busId.intValue());
+        } else {
+            range.values().forEach(dayLog -> dayLog.segments.forEach(segment -> buses.addAll(segment.extents.keySet())));
+        }
+
+        KeysetCollector collector = new KeysetCollector(after, limit);
+        for (int bus : buses) {
+            if (bus < after.getBusId()) {
+                continue;
+            }
+            long busFrom = bus == after.getBusId() ? Math.max(from, after.getTimestamp()) : from;
+            for (DayLog dayLog : range.values()) {
+                for (Segment segment : dayLog.segments) {
+                    segment.collect(bus, busFrom, to, collector);
+                }
+            }
+            if (collector.isFull()) {
+                break;
+            }
+        }
+        return collector.drainTo(consumer);
+    }
+
+    @Override
+    public void replay(long sinceMillis, Consumer<LocationFix> consumer) {
+        for (DayLog dayLog : days.tailMap(dayOf(sinceMillis), true).values()) {
+            for (Segment segment : dayLog.segments) {
+                segment.scanAll(sinceMillis, consumer);
+            }
+        }
+    }
+
+    /**
+     * 기준일 이전 세그먼트 파일 삭제
+     */
+    @Override
+    public synchronized int purgeBefore(LocalDate cutoff) {
+        List<LocalDate> expired = new ArrayList<>(days.headMap(cutoff, false).keySet());
+        for (LocalDate day : expired) {
+            DayLog dayLog = days.remove(day);
+            for (Segment segment : dayLog.segments) {
+                // 매핑은 GC 시 해제되며, 파일은 삭제 후에도 진행 중인 조회가 끝날 때까지 유효하다
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    log.error("Failed to delete location history segment {}: {}", segment.path, e.getMessage());
+                }
+            }
+            log.info("Deleted location history segments for {}", day);
+        }
+        return expired.size();
+    }
+
+    private LocalDate dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+    }
+
+    private static int toUnsignedShort(double value, double scale) {
+        return (int) Math.max(0, Math.min(MAX_UNSIGNED_SHORT - 1, Math.round(value * scale)));
+    }
+
+    /**
+     * 하루치 세그먼트 목록. 마지막 세그먼트에만 추가한다.
+     */
+    private final class DayLog {
+
+        final LocalDate day;
+        final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+        DayLog(LocalDate day) {
+            this.day = day;
+        }
+
+        Segment writable() {
+            Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last == null || last.isFull()) {
+                String name = String.format("trajectory-%s-%04d.seg", day.format(DAY_FORMAT), segments.size());
+                last = new Segment(directory.resolve(name), segments.size(), true);
+                segments.add(last);
+            }
+            return last;
+        }
+    }
+
+    /**
+     * 세그먼트 파일 하나. 쓰기는 append()의 잠금 안에서만 일어나고,
+     * 읽기는 count(volatile)까지의 레코드만 본다.
+     */
+    private final class Segment {
+
+        final Path path;
+        final int number;
+        final MappedByteBuffer buffer;
+        final boolean legacy;  // 정류장 ID가 없는 32 bytes 형식 (읽기 전용)
+        final int recordSize;
+        final int capacity;
+        final Map<Integer, BusExtent> extents = new ConcurrentHashMap<>();
+        volatile int count;
+
+        Segment(Path path, int number, boolean create) {
+            this.path = path;
+            this.number = number;
+            try (FileChannel channel = create
+                    ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = create ? (long) segmentRecords * RECORD_SIZE : channel.size();
+                // 매핑은 채널을 닫아도 유지된다
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map location history segment " + path, e);
+            }
+            this.legacy = !create && buffer.capacity() >= LEGACY_RECORD_SIZE
+                && buffer.getInt(LEGACY_RECORD_SIZE - 4) == LEGACY_COMMIT_MARKER;
+            this.recordSize = legacy ? LEGACY_RECORD_SIZE : RECORD_SIZE;
+            int marker = legacy ? LEGACY_COMMIT_MARKER : COMMIT_MARKER;
+            int records = buffer.capacity() / recordSize;
+
+            int recovered = 0;
+            while (recovered < records && buffer.getInt((recovered + 1) * recordSize - 4) == marker) {
+                int offset = recovered * recordSize;
+                index(buffer.getInt(offset + 8), recovered, buffer.getLong(offset));
+                recovered++;
+            }
+            this.count = recovered;
+            this.capacity = legacy ? recovered : records;
+        }
+
+        boolean isFull() {
+            return count >= capacity;
+        }
+
+        void write(LocationFix fix) {
+            int record = count;
+            int offset = record * recordSize;
+            int busId = (int) fix.getBusId();
+            buffer.putLong(offset, fix.getTimestamp());
+            buffer.putInt(offset + 8, busId);
+            buffer.putInt(offset + 12, (int) Math.round(fix.getLatitude() * COORDINATE_SCALE));
+            buffer.putInt(offset + 16, (int) Math.round(fix.getLongitude() * COORDINATE_SCALE));
+            buffer.putShort(offset + 20, (short) (fix.hasSpeed() ? toUnsignedShort(fix.getSpeed(), 10) : NO_SPEED));
+            buffer.putShort(offset + 22, (short) (fix.hasHeading() ? toUnsignedShort(fix.getHeading(), 10) : NO_HEADING));
+            buffer.putShort(offset + 24, (short) Math.min(Math.max(fix.getPassengers(), 0), MAX_UNSIGNED_SHORT));
+            buffer.putShort(offset + 26, (short) 0);
+            buffer.putLong(offset + 28, fix.getNearestStopId() != null ? fix.getNearestStopId() : NO_STOP);
+            buffer.putInt(offset + 36, COMMIT_MARKER);
+
+            index(busId, record, fix.getTimestamp());
+            count = record + 1;
+        }
+
+        void scan(int busId, long from, long to, Consumer<LocationFix> consumer) {
+            BusExtent extent = extents.get(busId);
+            if (extent == null) {
+                return;
+            }
+            int[] range = extent.range(from, to);
+            if (range == null) {
+                return;
+            }
+            int last = Math.min(range[1], count - 1);
+            for (int record = range[0]; record <= last; record++) {
+                int offset = record * recordSize;
+                if (buffer.getInt(offset + 8) != busId) {
+                    continue;
+                }
+                long timestamp = buffer.getLong(offset);
+                if (timestamp >= from && timestamp <= to) {
+                    consumer.accept(read(offset));
+                }
+            }
+        }
+
+        /**
+         * 키셋 페이지 수집. 레코드 ID는 (세그먼트 번호, 레코드 위치) - 같은 일자 안에서 유일하다.
+         */
+        void collect(int busId, long from, long to, KeysetCollector collector) {
+            BusExtent extent = extents.get(busId);
+            if (extent == null) {
+                return;
+            }
+            int[] range = extent.range(from, to);
+            if (range == null) {
+                return;
+            }
+            int last = Math.min(range[1], count - 1);
+            for (int record = range[0]; record <= last; record++) {
+                int offset = record * recordSize;
+                if (buffer.getInt(offset + 8) != busId) {
+                    continue;
+                }
+                long timestamp = buffer.getLong(offset);
+                long id = ((long) number << 32) | record;
+                if (timestamp >= from && timestamp <= to && collector.accepts(busId, timestamp, id)) {
+                    collector.add(id, read(offset));
+                }
+            }
+        }
+
+        void scanAll(long since, Consumer<LocationFix> consumer) {
+            int last = count;
+            for (int record = 0; record < last; record++) {
+                int offset = record * recordSize;
+                if (buffer.getLong(offset) >= since) {
+                    consumer.accept(read(offset));
+                }
+            }
+        }
+
+        private LocationFix read(int offset) {
+            int speed = Short.toUnsignedInt(buffer.getShort(offset + 20));
+            int heading = Short.toUnsignedInt(buffer.getShort(offset + 22));
+            long stop = legacy ? NO_STOP : buffer.getLong(offset + 28);
+            return LocationFix.builder()
+                .timestamp(buffer.getLong(offset))
+                .busId(Integer.toUnsignedLong(buffer.getInt(offset + 8)))
+                .latitude(buffer.getInt(offset + 12) / COORDINATE_SCALE)
+                .longitude(buffer.getInt(offset + 16) / COORDINATE_SCALE)
+                .speed(speed == NO_SPEED ? null : speed / 10.0)
+                .heading(heading == NO_HEADING ? null : heading / 10.0)
+                .passengers(Short.toUnsignedInt(buffer.getShort(offset + 24)))
+                .nearestStopId(stop == NO_STOP ? null : stop)
+                .build();
+        }
+
+        private void index(int busId, int record, long timestamp) {
+            extents.computeIfAbsent(busId, id -> new BusExtent()).add(record, timestamp);
+        }
+    }
+
+    /**
+     * 세그먼트 안에서 한 버스의 희소 인덱스.
+     * 체크포인트 i 에는 그 레코드 이전까지 이 버스의 최대 시각을 기록하므로,
+     * 최대 시각이 조회 시작보다 작은 마지막 체크포인트부터 스캔하면 된다 (순서가 어긋난 입력에도 안전).
+     */
+    private static final class BusExtent {
+
+        int first = -1;
+        int last = -1;
+        int records;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+
+        int[] checkpointRecords = new int[4];
+        long[] checkpointMaxBefore = new long[4];
+        int checkpoints;
+
+        synchronized void add(int record, long timestamp) {
+            if (records % CHECKPOINT_INTERVAL == 0) {
+                if (checkpoints == checkpointRecords.length) {
+                    checkpointRecords = Arrays.copyOf(checkpointRecords, checkpoints * 2);
+                    checkpointMaxBefore = Arrays.copyOf(checkpointMaxBefore, checkpoints * 2);
+                }
+                checkpointRecords[checkpoints] = record;
+                checkpointMaxBefore[checkpoints] = maxTimestamp;
+                checkpoints++;
+            }
+            if (first < 0) {
+                first = record;
+            }
+            last = record;
+            records++;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+        }
+
+        /**
+         * 스캔할 레코드 구간 [시작, 끝], 기간과 겹치지 않으면 null
+         */
+        synchronized int[] range(long from, long to) {
+            if (records == 0 || maxTimestamp < from || minTimestamp > to) {
+                return null;
+            }
+            // checkpointMaxBefore 는 단조 증가 - from 보다 작은 마지막 항목을 이진 탐색
+            int low = 0;
+            int high = checkpoints - 1;
+            int start = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (checkpointMaxBefore[mid] < from) {
+                    start = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return new int[] {checkpointRecords[start], last};
+        }
+    }
+}
@@ -11,8 +11,11 @@ import java.util.List;
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserAndIsReadFalse(User user);
     
-    @Query("SELECT n FROM Notification n WHERE n.bus.id = :busId AND n.type = 'BUS_ARRIVAL' AND n.isSent = false")
-    List<Notification> findPendingArrivalNotifications(@Param("busId") Long busId);
+    @Query("SELECT n FROM Notification n WHERE n.bus IS NOT NULL AND n.type = 'BUS_ARRIVAL' AND n.isSent = false")
+    List<Notification> findPendingArrivalNotifications();
+    
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.bus.id = :busId AND n.stopName = :stopName AND n.type = 'BUS_ARRIVAL' AND n.isSent = false")
+    List<Notification> findPendingArrivalNotifications(@Param("userId") Long userId, @Param("busId") Long busId, @Param("stopName") String stopName);
     
     @Query("SELECT DISTINCT r.passenger FROM Reservation r WHERE r.bus.id = :busId AND r.status = 'CONFIRMED'")
     List<User> findUsersWithReservationsOnBus(@Param("busId") Long busId);
@@ -18,9 +18,12 @@ public interface RouteRepository extends JpaRepository<Route, Long> {
     
     List<Route> findByIsActive(Boolean isActive);
     
-    @Query("SELECT r FROM Route r WHERE :stopName MEMBER OF r.stops")
+    @Query("SELECT DISTINCT r FROM Route r JOIN r.stops s WHERE s.name = :stopName")
     List<Route> findByStop(@Param("stopName") String stopName);
     
+    @Query("SELECT DISTINCT r FROM Route r LEFT JOIN FETCH r.stops")
+    List<Route> findAllWithStops();
+    
     @Query("SELECT r FROM Route r WHERE r.startPoint = :point OR r.endPoint = :point")
     List<Route> findByStartOrEndPoint(@Param("point") String point);
     
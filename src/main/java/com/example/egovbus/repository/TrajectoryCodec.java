@@ -0,0 +1,296 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.LocationFix;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trajectory Codec
+ * 한 버스의 위치 목록(청크)을 Gorilla 방식으로 압축한다.
+ *
+ * 열 단위로 순서대로 기록한다:
+ * <ul>
+ *   <li>timestamp - delta-of-delta</li>
+ *   <li>latitude / longitude - 1e-7도로 정수화한 뒤 delta-of-delta (약 1cm 정밀도)</li>
+ *   <li>speed / heading - 이전 값과의 XOR (무손실, 값 없음은 NaN)</li>
+ *   <li>passengers - delta-of-delta</li>
+ *   <li>nearest stop id - delta-of-delta (없음은 0, 버전 2부터)</li>
+ * </ul>
+ *
+ * delta-of-delta 값은 zigzag 후 크기에 따라 '0' | '10'+7 | '110'+9 | '1110'+12 | '1111'+64 비트로 기록한다.
+ */
+public final class TrajectoryCodec {
+
+    public static final int VERSION = 2;
+
+    private static final double COORDINATE_SCALE = 1e7;
+
+    private TrajectoryCodec() {
+    }
+
+    /**
+     * 청크 인코딩 (fixes 는 같은 버스, 시간순)
+     */
+    public static byte[] encode(List<LocationFix> fixes) {
+        BitWriter out = new BitWriter(fixes.size() * 16 + 16);
+        out.write(VERSION, 8);
+        out.write(fixes.size(), 32);
+
+        DeltaOfDelta timestamps = new DeltaOfDelta();
+        for (LocationFix fix : fixes) {
+            timestamps.write(out, fix.getTimestamp());
+        }
+        DeltaOfDelta latitudes = new DeltaOfDelta();
+        for (LocationFix fix : fixes) {
+            latitudes.write(out, Math.round(fix.getLatitude() * COORDINATE_SCALE));
+        }
+        DeltaOfDelta longitudes = new DeltaOfDelta();
+        for (LocationFix fix : fixes) {
+            longitudes.write(out, Math.round(fix.getLongitude() * COORDINATE_SCALE));
+        }
+        XorDouble speeds = new XorDouble();
+        for (LocationFix fix : fixes) {
+            speeds.write(out, fix.hasSpeed() ? fix.getSpeed() : Double.NaN);
+        }
+        XorDouble headings = new XorDouble();
+        for (LocationFix fix : fixes) {
+            headings.write(out, fix.hasHeading() ? fix.getHeading() : Double.NaN);
+        }
+        DeltaOfDelta passengers = new DeltaOfDelta();
+        for (LocationFix fix : fixes) {
+            passengers.write(out, fix.getPassengers());
+        }
+        DeltaOfDelta stops = new DeltaOfDelta();
+        for (LocationFix fix : fixes) {
+            stops.write(out, fix.getNearestStopId() != null ? fix.getNearestStopId() : 0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 청크 디코딩 (버전 1 청크는 정류장 열이 없다)
+     */
+    public static List<LocationFix> decode(long busId, byte[] data) {
+        BitReader in = new BitReader(data);
+        int version = (int) in.read(8);
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported trajectory chunk version: " + version);
+        }
+        int count = (int) in.read(32);
+
+        long[] timestamps = new long[count];
+        DeltaOfDelta timestampDecoder = new DeltaOfDelta();
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = timestampDecoder.read(in);
+        }
+        long[] latitudes = new long[count];
+        DeltaOfDelta latitudeDecoder = new DeltaOfDelta();
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = latitudeDecoder.read(in);
+        }
+        long[] longitudes = new long[count];
+        DeltaOfDelta longitudeDecoder = new DeltaOfDelta();
+        for (int i = 0; i < count; i++) {
+            longitudes[i] = longitudeDecoder.read(in);
+        }
+        double[] speeds = new double[count];
+        XorDouble speedDecoder = new XorDouble();
+        for (int i = 0; i < count; i++) {
+            speeds[i] = speedDecoder.read(in);
+        }
+        double[] headings = new double[count];
+        XorDouble headingDecoder = new XorDouble();
+        for (int i = 0; i < count; i++) {
+            headings[i] = headingDecoder.read(in);
+        }
+        long[] passengers = new long[count];
+        DeltaOfDelta passengerDecoder = new DeltaOfDelta();
+        for (int i = 0; i < count; i++) {
+            passengers[i] = passengerDecoder.read(in);
+        }
+        long[] stops = new long[count];
+        if (version >= 2) {
+            DeltaOfDelta stopDecoder = new DeltaOfDelta();
+            for (int i = 0; i < count; i++) {
+                stops[i] = stopDecoder.read(in);
+            }
+        }
+
+        List<LocationFix> fixes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            fixes.add(LocationFix.builder()
+                .busId(busId)
+                .timestamp(timestamps[i])
+                .latitude(latitudes[i] / COORDINATE_SCALE)
+                .longitude(longitudes[i] / COORDINATE_SCALE)
+                .speed(Double.isNaN(speeds[i]) ? null : speeds[i])
+                .heading(Double.isNaN(headings[i]) ? null : headings[i])
+                .passengers((int) passengers[i])
+                .nearestStopId(stops[i] != 0 ? stops[i] : null)
+                .build());
+        }
+        return fixes;
+    }
+
+    /**
+     * delta-of-delta 정수 열
+     */
+    private static final class DeltaOfDelta {
+
+        private long previous;
+        private long previousDelta;
+
+        void write(BitWriter out, long value) {
+            long delta = value - previous;
+            long zigzag = zigzag(delta - previousDelta);
+            if (zigzag == 0) {
+                out.write(0b0, 1);
+            } else if (zigzag < (1L << 7)) {
+                out.write(0b10, 2);
+                out.write(zigzag, 7);
+            } else if (zigzag < (1L << 9)) {
+                out.write(0b110, 3);
+                out.write(zigzag, 9);
+            } else if (zigzag < (1L << 12)) {
+                out.write(0b1110, 4);
+                out.write(zigzag, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(zigzag, 64);
+            }
+            previous = value;
+            previousDelta = delta;
+        }
+
+        long read(BitReader in) {
+            long zigzag;
+            if (in.read(1) == 0) {
+                zigzag = 0;
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(7);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(9);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(12);
+            } else {
+                zigzag = in.read(64);
+            }
+            long delta = previousDelta + unzigzag(zigzag);
+            previous += delta;
+            previousDelta = delta;
+            return previous;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * Gorilla XOR 실수 열.
+     * '0' 같은 값 | '10' 이전 범위 안의 의미 비트 | '11' + leading(5) + 길이(6) + 의미 비트
+     */
+    private static final class XorDouble {
+
+        private long previous;
+        private int leading = Integer.MAX_VALUE;
+        private int trailing;
+
+        void write(BitWriter out, double value) {
+            long bits = Double.doubleToLongBits(value);
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.write(0b0, 1);
+                return;
+            }
+            int currentLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int currentTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading != Integer.MAX_VALUE && currentLeading >= leading && currentTrailing >= trailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+                return;
+            }
+            leading = currentLeading;
+            trailing = currentTrailing;
+            int length = 64 - leading - trailing;
+            out.write(0b11, 2);
+            out.write(leading, 5);
+            // 길이 64는 6비트에 담기지 않으므로 0으로 기록한다
+            out.write(length & 0x3F, 6);
+            out.write(xor >>> trailing, length);
+        }
+
+        double read(BitReader in) {
+            if (in.read(1) == 0) {
+                return Double.longBitsToDouble(previous);
+            }
+            if (in.read(1) == 1) {
+                leading = (int) in.read(5);
+                int length = (int) in.read(6);
+                if (length == 0) {
+                    length = 64;
+                }
+                trailing = 64 - leading - length;
+            }
+            long xor = in.read(64 - leading - trailing) << trailing;
+            previous ^= xor;
+            return Double.longBitsToDouble(previous);
+        }
+    }
+
+    private static final class BitWriter {
+
+        private byte[] buffer;
+        private long position;
+
+        BitWriter(int initialBytes) {
+            this.buffer = new byte[Math.max(initialBytes, 16)];
+        }
+
+        void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                int index = (int) (position >>> 3);
+                if (index == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                if (((value >>> i) & 1) != 0) {
+                    buffer[index] |= (byte) (0x80 >>> (position & 7));
+                }
+                position++;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+
+        private final byte[] data;
+        private long position;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                int index = (int) (position >>> 3);
+                if (index >= data.length) {
+                    throw new IllegalArgumentException("Truncated trajectory chunk");
+                }
+                value = (value << 1) | ((data[index] >>> (7 - (position & 7))) & 1);
+                position++;
+            }
+            return value;
+        }
+    }
+}
@@ -3,13 +3,17 @@ package com.example.egovbus.scheduler;
 import com.example.egovbus.model.Bus;
 import com.example.egovbus.model.BusStatus;
 import com.example.egovbus.service.BusService;
+import com.example.egovbus.service.RouteGeometry;
+import com.example.egovbus.service.RouteShapeIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Bus Location Simulator
@@ -21,12 +25,18 @@ import java.util.Random;
 public class BusLocationSimulator {
     
     private final BusService busService;
+    private final RouteShapeIndex routeShapeIndex;
     private final Random random = new Random();
     
+    // 버스 ID -> 노선 경로상 위치 (선형 위치, 진행 방향 +1/-1)
+    private final Map<Long, double[]> routeProgress = new ConcurrentHashMap<>();
+    
     // 아디스아바바 좌표 범위 (에티오피아 수도)
     private static final double ADDIS_ABABA_LAT = 9.03;
     private static final double ADDIS_ABABA_LON = 38.74;
     private static final double COORD_RANGE = 0.1; // 약 11km 범위
+    private static final double GPS_NOISE_DEGREES = 0.0001; // 약 10m 오차
+    private static final double UPDATE_SECONDS = 10;
     
     /**
      * 초기 데이터 설정
@@ -66,6 +76,18 @@ public class BusLocationSimulator {
         
         for (Bus bus : activeBuses) {
             try {
+                // 속도 계산 (20-50 km/h)
+                double speed = 20 + random.nextDouble() * 30;
+                
+                RouteGeometry geometry = routeShapeIndex.get(bus.getRoute() != null ? bus.getRoute().getId() : null);
+                if (geometry != null) {
+                    // 노선 경로를 따라 이동 (종점에서 회차)
+                    double[] position = moveAlongRoute(bus, geometry, speed);
+                    busService.updateBusLocation(bus.getId(), position[0], position[1], speed);
+                    updatePassengers(bus);
+                    continue;
+                }
+                
                 // 현재 위치 가져오기
                 Double currentLat = bus.getCurrentLatitude();
                 Double currentLon = bus.getCurrentLongitude();
@@ -89,20 +111,9 @@ public class BusLocationSimulator {
                 newLon = Math.max(ADDIS_ABABA_LON - COORD_RANGE/2, 
                          Math.min(ADDIS_ABABA_LON + COORD_RANGE/2, newLon));
                 
-                // 속도 계산 (20-50 km/h)
-                double speed = 20 + random.nextDouble() * 30;
-                
                 // 위치 업데이트
                 busService.updateBusLocation(bus.getId(), newLat, newLon, speed);
-                
-                // 랜덤하게 승객 수 변경 (10% 확률)
-                if (random.nextDouble() < 0.1) {
-                    int passengerChange = random.nextInt(5) - 2; // -2 to +2
-                    int newPassengers = Math.max(0, 
-                        Math.min(bus.getCapacity(), 
-                        (bus.getCurrentPassengers() != null ? bus.getCurrentPassengers() : 0) + passengerChange));
-                    busService.updatePassengerCount(bus.getId(), newPassengers);
-                }
+                updatePassengers(bus);
                 
                 log.debug("Updated location for bus {}: ({}, {}), speed: {} km/h", 
                     bus.getBusNumber(), newLat, newLon, speed);
@@ -113,6 +124,44 @@ public class BusLocationSimulator {
         }
     }
     
+    /**
+     * 노선 경로상 다음 위치 (GPS 오차 포함 {위도, 경도})
+     */
+    private double[] moveAlongRoute(Bus bus, RouteGeometry geometry, double speedKmh) {
+        double[] progress = routeProgress.computeIfAbsent(bus.getId(), id -> {
+            // 현재 위치가 있으면 경로상 가장 가까운 지점에서, 없으면 임의 지점에서 출발
+            double start = bus.getCurrentLatitude() != null && bus.getCurrentLongitude() != null
+                ? geometry.project(bus.getCurrentLatitude(), bus.getCurrentLongitude()).getDistance()
+                : random.nextDouble() * geometry.length();
+            return new double[]{start, 1};
+        });
+        
+        double distance = progress[0] + progress[1] * speedKmh / 3.6 * UPDATE_SECONDS;
+        if (distance >= geometry.length() || distance <= 0) {
+            progress[1] = -progress[1];
+            distance = Math.max(0, Math.min(geometry.length(), distance));
+        }
+        progress[0] = distance;
+        
+        double[] point = geometry.pointAt(distance);
+        point[0] += (random.nextDouble() - 0.5) * GPS_NOISE_DEGREES;
+        point[1] += (random.nextDouble() - 0.5) * GPS_NOISE_DEGREES;
+        return point;
+    }
+    
+    /**
+     * 랜덤하게 승객 수 변경 (10% 확률)
+     */
+    private void updatePassengers(Bus bus) {
+        if (random.nextDouble() < 0.1) {
+            int passengerChange = random.nextInt(5) - 2; // -2 to +2
+            int newPassengers = Math.max(0, 
+                Math.min(bus.getCapacity(), 
+                (bus.getCurrentPassengers() != null ? bus.getCurrentPassengers() : 0) + passengerChange));
+            busService.updatePassengerCount(bus.getId(), newPassengers);
+        }
+    }
+    
     /**
      * 1분마다 버스 상태 체크 및 변경
      */
@@ -44,7 +44,7 @@ public class SecurityConfig {
             .authorizeRequests()
                 .antMatchers("/", "/index.html", "/admin-dashboard.html", "/driver-app.html", "/passenger-app.html", 
                            "/demo-passenger.html", "/js/**", "/css/**", "/api/auth/**", "/ws-bus/**", "/h2-console/**").permitAll()
-                .antMatchers("/api/buses/**", "/api/routes/**", "/api/users/**").permitAll()
+                .antMatchers("/api/buses/**", "/api/routes/**", "/api/stops/**", "/api/users/**").permitAll()
                 .antMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             .and()
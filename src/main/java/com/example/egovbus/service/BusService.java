@@ -1,16 +1,32 @@
 package com.example.egovbus.service;
 
+import com.example.egovbus.dto.DriverLocationUpdate;
+import com.example.egovbus.dto.ListDelta;
+import com.example.egovbus.dto.LocationBatchResult;
+import com.example.egovbus.dto.NearbyBus;
+import com.example.egovbus.dto.StopArrival;
 import com.example.egovbus.model.Bus;
 import com.example.egovbus.model.BusStatus;
-import com.example.egovbus.model.BusLocation;
+import com.example.egovbus.model.LiveBusState;
+import com.example.egovbus.model.LocationFix;
+import com.example.egovbus.model.StopSnap;
 import com.example.egovbus.repository.BusRepository;
-import com.example.egovbus.repository.BusLocationRepository;
+import com.example.egovbus.repository.LocationHistoryStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Bus Service Implementation
@@ -21,48 +37,125 @@ import java.util.Optional;
 public class BusService {
     
     private final BusRepository busRepository;
-    private final BusLocationRepository busLocationRepository;
+    private final FleetStateStore fleetStateStore;
+    private final LocationHistoryWriter locationHistoryWriter;
+    private final LocationHistoryStore locationHistoryStore;
+    private final StopIndex stopIndex;
+    private final MapMatcher mapMatcher;
+    private final EtaEngine etaEngine;
+    private final GeofenceEngine geofenceEngine;
+    private final RouteService routeService;
+    private final ReadCoalescer readCoalescer;
+    
+    // 단말 시계 오차 허용 범위
+    private static final long MAX_CLOCK_SKEW_MILLIS = 60_000;
     
     /**
      * 모든 버스 조회
      */
+    @Transactional(readOnly = true)
     public List<Bus> getAllBuses() {
-        return busRepository.findAll();
+        List<Bus> buses = busRepository.findAll();
+        buses.forEach(fleetStateStore::overlay);
+        return buses;
+    }
+    
+    /**
+     * 버스 목록 버전 (실시간 상태 포함)
+     */
+    public long getFleetVersion() {
+        return fleetStateStore.version();
+    }
+    
+    /**
+     * 버스 목록 태그 (실시간 상태와 노선 버전, 목록에 노선 정보가 포함되므로)
+     */
+    public String getBusListTag(boolean activeOnly) {
+        return busListTag(activeOnly, fleetStateStore.version());
+    }
+    
+    /**
+     * 버스 목록 (동시 요청은 한 번의 조회와 직렬화를 공유, 결과는 freshness 주기만큼 재사용)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SharedResult<List<Bus>> getSharedBuses(boolean activeOnly) {
+        return readCoalescer.get(activeOnly ? "buses.active" : "buses.all", () -> {
+            long version = fleetStateStore.version();
+            String tag = busListTag(activeOnly, version);
+            return new SharedResult<>(tag, version, activeOnly ? getActiveBuses() : getAllBuses());
+        });
+    }
+    
+    private String busListTag(boolean activeOnly, long version) {
+        return SharedResult.tag(activeOnly ? "active-buses" : "buses", version, routeService.getVersion());
+    }
+    
+    /**
+     * 버전 이후 바뀐 버스 (activeOnly 면 운행 중이 아니게 된 버스는 removed 로).
+     * 변경분은 실시간 상태 저장소에서 만들고, 모르는 버전이면 전체 목록을 돌려준다.
+     */
+    @Transactional(readOnly = true)
+    public ListDelta<Bus> getBusChanges(long since, boolean activeOnly) {
+        ChangeLog.Changes changes = fleetStateStore.changesSince(since);
+        if (changes == null) {
+            long version = fleetStateStore.version();
+            return ListDelta.full(version, activeOnly ? getActiveBuses() : getAllBuses());
+        }
+        List<LiveBusState> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>(changes.getRemoved());
+        for (Long busId : changes.getChanged()) {
+            Optional<LiveBusState> state = fleetStateStore.get(busId);
+            if (state.isPresent() && (!activeOnly || state.get().getStatus() == BusStatus.ACTIVE)) {
+                changed.add(state.get());
+            } else {
+                removed.add(busId);
+            }
+        }
+        return ListDelta.changes(changes.getVersion(), fleetStateStore.toBuses(changed), removed);
     }
     
     /**
      * 버스 ID로 조회
      */
+    @Transactional(readOnly = true)
     public Optional<Bus> getBusById(Long id) {
-        return busRepository.findById(id);
+        return busRepository.findById(id).map(fleetStateStore::overlay);
     }
     
     /**
      * 버스 번호로 조회
      */
+    @Transactional(readOnly = true)
     public Optional<Bus> getBusByNumber(String busNumber) {
-        return busRepository.findByBusNumber(busNumber);
+        return busRepository.findByBusNumber(busNumber).map(fleetStateStore::overlay);
     }
     
     /**
-     * 상태별 버스 조회
+     * 상태별 버스 조회 (실시간 상태 저장소)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Bus> getBusesByStatus(BusStatus status) {
-        return busRepository.findByStatus(status);
+        return fleetStateStore.toBuses(fleetStateStore.states().stream()
+            .filter(state -> state.getStatus() == status)
+            .collect(Collectors.toList()));
     }
     
     /**
-     * 운행중인 버스 조회
+     * 운행중인 버스 조회 (실시간 상태 저장소)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Bus> getActiveBuses() {
-        return busRepository.findByStatus(BusStatus.ACTIVE);
+        return getBusesByStatus(BusStatus.ACTIVE);
     }
     
     /**
      * 노선별 버스 조회
      */
+    @Transactional(readOnly = true)
     public List<Bus> getBusesByRoute(Long routeId) {
-        return busRepository.findByRouteId(routeId);
+        List<Bus> buses = busRepository.findByRouteId(routeId);
+        buses.forEach(fleetStateStore::overlay);
+        return buses;
     }
     
     /**
@@ -71,7 +164,9 @@ public class BusService {
     public Bus createBus(Bus bus) {
         bus.setStatus(BusStatus.INACTIVE);
         bus.setCurrentPassengers(0);
-        return busRepository.save(bus);
+        Bus savedBus = busRepository.save(bus);
+        fleetStateStore.register(savedBus);
+        return savedBus;
     }
     
     /**
@@ -88,94 +183,275 @@ public class BusService {
         bus.setCapacity(busDetails.getCapacity());
         bus.setRoute(busDetails.getRoute());
         
-        return busRepository.save(bus);
+        Bus savedBus = busRepository.save(bus);
+        fleetStateStore.register(savedBus);
+        return fleetStateStore.overlay(savedBus);
     }
     
     /**
-     * 버스 위치 업데이트
+     * 버스 위치 업데이트 (수신 시각 기준)
+     * 실시간 상태는 메모리에 반영하고 buses 테이블은 FleetStateStore가 주기적으로 기록한다.
+     * 위치 히스토리는 LocationHistoryWriter가 비동기로 일괄 저장한다.
+     * 실시간 위치는 MapMatcher로 노선 경로에 대응한 좌표이고, 히스토리에는 수신한 좌표와 그 좌표의 가장 가까운 정류장을 남긴다.
+     * 가장 가까운 정류장과 다음 정류장은 수신 시점에 StopIndex로 계산해 함께 반영한다.
+     * 도착 알림 지오펜스는 GeofenceEngine이 메모리에서 판정한다 (위치마다 DB 조회 없음).
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Bus updateBusLocation(Long busId, Double latitude, Double longitude, Double speed) {
-        Bus bus = busRepository.findById(busId)
+        return applyFix(busId, latitude, longitude, speed, null, System.currentTimeMillis(), false);
+    }
+    
+    /**
+     * 운전자 위치 수신 (단말 시각 기준)
+     * 2G/3G 구간에서 늦게 도착한 위치는 현재 위치보다 오래되었으면 히스토리에만 남긴다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Bus updateDriverLocation(DriverLocationUpdate update) {
+        long timestamp = deviceTimestamp(update, System.currentTimeMillis());
+        return applyFix(update.getBusId(), update.getLatitude(), update.getLongitude(),
+            update.getSpeed(), update.getHeading(), timestamp, true);
+    }
+    
+    private Bus applyFix(Long busId, Double latitude, Double longitude, Double speed, Double heading,
+                         long timestamp, boolean newerOnly) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+        LiveBusState current = fleetStateStore.get(busId)
             .orElseThrow(() -> new RuntimeException("Bus not found with id: " + busId));
         
-        bus.setCurrentLatitude(latitude);
-        bus.setCurrentLongitude(longitude);
-        bus.setSpeed(speed);
-        bus.setLastUpdated(LocalDateTime.now());
-        
         // 위치 히스토리 저장
-        BusLocation location = new BusLocation();
-        location.setBus(bus);
-        location.setLatitude(latitude);
-        location.setLongitude(longitude);
-        location.setSpeed(speed);
-        location.setPassengers(bus.getCurrentPassengers());
-        location.setTimestamp(LocalDateTime.now());
+        locationHistoryWriter.enqueue(LocationFix.builder()
+            .busId(busId)
+            .latitude(latitude)
+            .longitude(longitude)
+            .speed(speed)
+            .heading(heading)
+            .passengers(current.getPassengers() != null ? current.getPassengers() : 0)
+            .timestamp(timestamp)
+            .nearestStopId(nearestStopId(latitude, longitude))
+            .build());
         
-        busLocationRepository.save(location);
+        if (newerOnly && current.getLastUpdated() != null && !time.isAfter(current.getLastUpdated())) {
+            return fleetStateStore.toBus(current);
+        }
+        MapMatcher.Match match = mapMatcher.match(busId, current.getRouteId(), latitude, longitude, timestamp);
+        if (match.isRejected()) {
+            return fleetStateStore.toBus(current);
+        }
+        StopSnap stopSnap = snap(busId, current.getRouteId(), match, timestamp);
+        LiveBusState state = newerOnly
+            ? fleetStateStore.applyLocationIfNewer(busId, match.getLatitude(), match.getLongitude(),
+                speed, time, stopSnap, match.getRouteDistance())
+            : fleetStateStore.applyLocation(busId, match.getLatitude(), match.getLongitude(),
+                speed, time, stopSnap, match.getRouteDistance());
+        if (time.equals(state.getLastUpdated())) {  // 실시간 위치로 반영된 경우만
+            geofenceEngine.evaluate(busId, match.getLatitude(), match.getLongitude(), timestamp);
+        }
+        return fleetStateStore.toBus(state);
+    }
+    
+    /**
+     * 버퍼링된 위치 일괄 수신
+     * 히스토리는 한 번에 일괄 저장하고 (JDBC 백엔드는 한 트랜잭션), 실시간 위치는 버스별 최신 위치로만 갱신한다.
+     * 히스토리는 요청이 성공하면 저장된 것이다 (압축 백엔드의 청크는 별도 트랜잭션으로 먼저 커밋된다).
+     * 경로 대응은 추적 상태가 이어지도록 모든 위치를 시간 순서대로 거친다.
+     */
+    public LocationBatchResult ingestLocations(List<DriverLocationUpdate> updates) {
+        long now = System.currentTimeMillis();
+        List<LocationFix> fixes = new ArrayList<>(updates.size());
+        int rejected = 0;
+        
+        for (DriverLocationUpdate update : updates) {
+            if (update.getBusId() == null || update.getLatitude() == null || update.getLongitude() == null
+                    || fleetStateStore.get(update.getBusId()).isEmpty()) {
+                rejected++;
+                continue;
+            }
+            
+            long timestamp = deviceTimestamp(update, now);
+            LiveBusState state = fleetStateStore.get(update.getBusId()).get();
+            LocationFix fix = LocationFix.builder()
+                .busId(update.getBusId())
+                .latitude(update.getLatitude())
+                .longitude(update.getLongitude())
+                .speed(update.getSpeed())
+                .heading(update.getHeading())
+                .passengers(state.getPassengers() != null ? state.getPassengers() : 0)
+                .timestamp(timestamp)
+                .nearestStopId(nearestStopId(update.getLatitude(), update.getLongitude()))
+                .build();
+            
+            fixes.add(fix);
+        }
         
-        return busRepository.save(bus);
+        if (!fixes.isEmpty()) {
+            fixes.sort(Comparator.comparingLong(LocationFix::getTimestamp));
+            locationHistoryStore.append(fixes);
+            // 응답 후 앱이 버퍼를 지우므로 메모리에 모으는 저장소도 응답 전에 저장한다
+            locationHistoryStore.flush(fixes.stream().map(LocationFix::getBusId).collect(Collectors.toSet()));
+        }
+        
+        Map<Long, LocationFix> newestByBus = new HashMap<>();
+        Map<Long, MapMatcher.Match> matches = new HashMap<>();
+        int discarded = 0;
+        for (LocationFix fix : fixes) {
+            Long routeId = fleetStateStore.get(fix.getBusId()).get().getRouteId();
+            MapMatcher.Match match = mapMatcher.match(fix.getBusId(), routeId,
+                fix.getLatitude(), fix.getLongitude(), fix.getTimestamp());
+            if (match.isRejected()) {
+                discarded++;
+                continue;
+            }
+            // 시간순이므로 마지막으로 받아들인 위치가 버스별 최신 위치다
+            newestByBus.put(fix.getBusId(), fix);
+            matches.put(fix.getBusId(), match);
+        }
+        
+        int advanced = 0;
+        for (LocationFix newest : newestByBus.values()) {
+            MapMatcher.Match match = matches.get(newest.getBusId());
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(newest.getTimestamp()), ZoneId.systemDefault());
+            LiveBusState before = fleetStateStore.get(newest.getBusId()).get();
+            StopSnap stopSnap = snap(newest.getBusId(), before.getRouteId(), match, newest.getTimestamp());
+            LiveBusState after = fleetStateStore.applyLocationIfNewer(newest.getBusId(),
+                match.getLatitude(), match.getLongitude(), newest.getSpeed(), timestamp, stopSnap, match.getRouteDistance());
+            if (after != before) {
+                advanced++;
+                geofenceEngine.evaluate(newest.getBusId(), match.getLatitude(), match.getLongitude(), newest.getTimestamp());
+            }
+        }
+        
+        return new LocationBatchResult(fixes.size(), rejected, advanced, discarded);
+    }
+    
+    // 단말 시각 (없으면 수신 시각, 시계 오차로 앞선 시각은 허용 범위까지만)
+    private static long deviceTimestamp(DriverLocationUpdate update, long now) {
+        return update.getDeviceTime() != null ? Math.min(update.getDeviceTime(), now + MAX_CLOCK_SKEW_MILLIS) : now;
+    }
+    
+    // 히스토리에 남길 가장 가까운 정류장 (정류장이 없으면 null)
+    private Long nearestStopId(double latitude, double longitude) {
+        StopSnap stopSnap = stopIndex.snap(null, latitude, longitude);
+        return stopSnap != null ? stopSnap.getNearestStopId() : null;
+    }
+    
+    /**
+     * 정류장 대응과 도착 예측. 노선 경로상 위치가 있으면 다음 정류장은 진행 방향 기준 예측의 첫 정류장이다.
+     */
+    private StopSnap snap(Long busId, Long routeId, MapMatcher.Match match, long timestamp) {
+        StopSnap stopSnap = stopIndex.snap(routeId, match.getLatitude(), match.getLongitude());
+        EtaEngine.Prediction prediction = etaEngine.observe(busId, routeId, match.getRouteDistance(), timestamp);
+        if (stopSnap == null || prediction == null || prediction.size() == 0) {
+            return stopSnap;
+        }
+        return stopSnap.toBuilder()
+            .nextStopId(prediction.stopId(0))
+            .nextStopName(prediction.stopName(0))
+            .nextStopSequence(prediction.sequence(0))
+            .nextStopDistance(prediction.remainingMeters(0))
+            .nextStopArrivalMillis(prediction.arrivalMillis(0))
+            .build();
+    }
+    
+    /**
+     * 하류 정류장 도착 예측
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<StopArrival> getArrivals(Long busId) {
+        if (fleetStateStore.get(busId).isEmpty()) {
+            throw new RuntimeException("Bus not found with id: " + busId);
+        }
+        return etaEngine.getArrivals(busId);
     }
     
     /**
      * 버스 상태 변경
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Bus updateBusStatus(Long busId, BusStatus status) {
-        Bus bus = busRepository.findById(busId)
-            .orElseThrow(() -> new RuntimeException("Bus not found with id: " + busId));
-        
-        bus.setStatus(status);
-        return busRepository.save(bus);
+        return fleetStateStore.toBus(fleetStateStore.updateStatus(busId, status));
     }
     
     /**
      * 탑승객 수 업데이트
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Bus updatePassengerCount(Long busId, Integer passengers) {
-        Bus bus = busRepository.findById(busId)
-            .orElseThrow(() -> new RuntimeException("Bus not found with id: " + busId));
-        
-        if (passengers > bus.getCapacity()) {
-            throw new RuntimeException("Passenger count exceeds bus capacity");
-        }
-        
-        bus.setCurrentPassengers(passengers);
-        return busRepository.save(bus);
+        return fleetStateStore.toBus(fleetStateStore.updatePassengers(busId, passengers));
+    }
+    
+    /**
+     * 탑승객 수 증감 (승차 체크인 등)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Bus adjustPassengerCount(Long busId, int delta) {
+        return fleetStateStore.toBus(fleetStateStore.adjustPassengers(busId, delta));
     }
     
     /**
-     * 특정 지역 내 버스 조회
+     * 특정 지역 내 버스 조회 (실시간 위치 격자 인덱스)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Bus> getBusesInArea(Double minLat, Double maxLat, Double minLon, Double maxLon) {
-        return busRepository.findBusesInArea(minLat, maxLat, minLon, maxLon);
+        return fleetStateStore.toBuses(fleetStateStore.findInArea(minLat, maxLat, minLon, maxLon));
     }
     
     /**
-     * 여석이 있는 버스 조회
+     * 가까운 운행 중 버스 k대 조회 (노선, 여석 조건 선택)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<NearbyBus> findNearestBuses(double latitude, double longitude, int k, Long routeId, boolean hasFreeSeats) {
+        Predicate<LiveBusState> filter = state -> state.getStatus() == BusStatus.ACTIVE
+            && (routeId == null || routeId.equals(state.getRouteId()))
+            && (!hasFreeSeats || state.hasFreeSeats());
+        
+        List<NearbyBus> result = new ArrayList<>();
+        for (FleetSpatialIndex.Neighbor neighbor : fleetStateStore.findNearest(latitude, longitude, k, filter)) {
+            fleetStateStore.get(neighbor.getBusId()).ifPresent(state ->
+                result.add(new NearbyBus(fleetStateStore.toBus(state), neighbor.getDistanceMeters())));
+        }
+        return result;
+    }
+    
+    /**
+     * 여석이 있는 버스 조회 (실시간 상태 저장소)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Bus> getAvailableBuses() {
-        return busRepository.findAvailableBuses();
+        return fleetStateStore.toBuses(fleetStateStore.states().stream()
+            .filter(LiveBusState::hasFreeSeats)
+            .collect(Collectors.toList()));
     }
     
     /**
-     * 버스 삭제
+     * 버스 삭제 (실시간 상태는 커밋 후 제거)
      */
     public void deleteBus(Long id) {
         busRepository.deleteById(id);
+        fleetStateStore.evictAfterCommit(id, () -> {
+            mapMatcher.reset(id);
+            etaEngine.reset(id);
+        });
     }
     
     /**
-     * 버스 통계 조회
+     * 버스 통계 조회 (실시간 상태 저장소)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BusStatistics getBusStatistics() {
         BusStatistics stats = new BusStatistics();
-        stats.setTotalBuses(busRepository.count());
-        stats.setActiveBuses(busRepository.countByStatus(BusStatus.ACTIVE));
-        stats.setInactiveBuses(busRepository.countByStatus(BusStatus.INACTIVE));
-        stats.setMaintenanceBuses(busRepository.countByStatus(BusStatus.MAINTENANCE));
+        stats.setTotalBuses((long) fleetStateStore.states().size());
+        stats.setActiveBuses(countByStatus(BusStatus.ACTIVE));
+        stats.setInactiveBuses(countByStatus(BusStatus.INACTIVE));
+        stats.setMaintenanceBuses(countByStatus(BusStatus.MAINTENANCE));
         return stats;
     }
     
+    private Long countByStatus(BusStatus status) {
+        return fleetStateStore.states().stream()
+            .filter(state -> state.getStatus() == status)
+            .count();
+    }
+    
     /**
      * 버스 통계 내부 클래스
      */
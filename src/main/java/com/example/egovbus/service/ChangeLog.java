@@ -0,0 +1,108 @@
+package com.example.egovbus.service;
+
+import lombok.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Change Log
+ * 목록 스냅샷 버전과 항목별 마지막 변경 버전 (ETag, ?since= 델타 조회용).
+ *
+ * 버전은 기동 시각(마이크로초 단위)에서 시작해 변경마다 1씩 증가하므로, 재기동 후에도 이전 프로세스의
+ * 버전보다 크다. 기동 이전 버전으로 요청하면 델타를 만들 수 없다고 (null) 답한다.
+ * DB 에 기록되는 변경은 커밋 후에 한 번 더 버전을 올려, 커밋 전 데이터가 새 버전으로 캐시되지 않게 한다.
+ */
+public final class ChangeLog {
+
+    private final long origin = System.currentTimeMillis() * 1000;
+    private long version = origin;
+
+    // 항목 ID -> 마지막 변경 버전
+    private final Map<Long, Long> changed = new HashMap<>();
+
+    // 삭제된 항목 ID -> 삭제 버전
+    private final Map<Long, Long> removed = new HashMap<>();
+
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * 항목 변경 기록
+     */
+    public synchronized void touch(Long id) {
+        removed.remove(id);
+        changed.put(id, ++version);
+    }
+
+    /**
+     * 항목 변경 기록 (트랜잭션 안이면 커밋 후 다시 기록)
+     */
+    public void touchAfterCommit(Long id) {
+        touch(id);
+        afterCommit(() -> touch(id));
+    }
+
+    /**
+     * 항목 삭제 기록 (트랜잭션 안이면 커밋 후 다시 기록)
+     */
+    public void removeAfterCommit(Long id) {
+        remove(id);
+        afterCommit(() -> remove(id));
+    }
+
+    /**
+     * since 이후 바뀐 항목과 삭제된 항목 (since 가 이 프로세스의 버전이 아니면 null)
+     */
+    public synchronized Changes since(long since) {
+        if (since < origin || since > version) {
+            return null;
+        }
+        Set<Long> changedIds = new LinkedHashSet<>();
+        changed.forEach((id, at) -> {
+            if (at > since) {
+                changedIds.add(id);
+            }
+        });
+        Set<Long> removedIds = new LinkedHashSet<>();
+        removed.forEach((id, at) -> {
+            if (at > since) {
+                removedIds.add(id);
+            }
+        });
+        return new Changes(version, changedIds, removedIds);
+    }
+
+    private synchronized void remove(Long id) {
+        changed.remove(id);
+        removed.put(id, ++version);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 버전 사이의 변경 내역
+     */
+    @Value
+    public static class Changes {
+
+        long version;
+
+        Set<Long> changed;
+
+        Set<Long> removed;
+    }
+}
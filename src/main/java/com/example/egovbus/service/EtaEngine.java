@@ -0,0 +1,401 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.StopArrival;
+import com.example.egovbus.model.LiveBusState;
+import com.example.egovbus.model.LocationFix;
+import com.example.egovbus.repository.LocationHistoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ETA Engine
+ * 노선상 선형 위치로 하류 정류장별 도착 시각을 예측한다.
+ *
+ * 정류장 사이 구간 소요 시간은 방향별로 학습한다 (지수 가중 이동 평균). 기동 시 최근 히스토리로
+ * 초기값을 만들고, 이후 위치가 들어올 때마다 버스가 지난 정류장의 통과 시각을 보간해 갱신한다.
+ * 학습되지 않은 구간은 bus.monitoring.eta.default-speed-kmh 로 추정한다.
+ *
+ * 예측은 위치를 받을 때마다 버스별로 다시 계산해 (버스, 정류장) 단위로 캐시하며,
+ * 도착 시각을 절대 시각으로 보관하므로 조회 시에는 현재 시각만 빼면 된다.
+ * 현재 버스의 진행 속도가 학습값과 얼마나 다른지 (pace) 를 반영해 남은 시간을 보정한다.
+ */
+@Component
+@Slf4j
+public class EtaEngine {
+
+    // 이보다 작은 이동은 방향 판단에 쓰지 않는다 (GPS 오차)
+    private static final double DIRECTION_THRESHOLD_METERS = 5;
+
+    private static final double MIN_PACE = 0.5;
+    private static final double MAX_PACE = 2.0;
+
+    private final RouteShapeIndex routeShapeIndex;
+    private final FleetStateStore fleetStateStore;
+    private final LocationHistoryStore historyStore;
+    private final double defaultSpeedMetersPerSecond;
+    private final double alpha;
+    private final int learningHours;
+    private final double maxOffsetMeters;
+
+    // 노선 ID -> 구간 소요 시간
+    private final Map<Long, SegmentTimes> segmentTimes = new ConcurrentHashMap<>();
+
+    // 버스 ID -> 진행 상태와 예측
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+
+    public EtaEngine(RouteShapeIndex routeShapeIndex,
+                     FleetStateStore fleetStateStore,
+                     LocationHistoryStore historyStore,
+                     @Value("${bus.monitoring.eta.default-speed-kmh:20}") double defaultSpeedKmh,
+                     @Value("${bus.monitoring.eta.ewma-alpha:0.2}") double alpha,
+                     @Value("${bus.monitoring.eta.learning-hours:6}") int learningHours,
+                     @Value("${bus.monitoring.matching.max-offset-meters:60}") double maxOffsetMeters) {
+        this.routeShapeIndex = routeShapeIndex;
+        this.fleetStateStore = fleetStateStore;
+        this.historyStore = historyStore;
+        this.defaultSpeedMetersPerSecond = defaultSpeedKmh / 3.6;
+        this.alpha = alpha;
+        this.learningHours = learningHours;
+        this.maxOffsetMeters = maxOffsetMeters;
+    }
+
+    /**
+     * 최근 히스토리로 구간 소요 시간 초기 학습
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void learnFromHistory() {
+        long since = System.currentTimeMillis() - learningHours * 3_600_000L;
+        int learned = 0;
+        for (LiveBusState state : fleetStateStore.states()) {
+            RouteGeometry geometry = routeShapeIndex.get(state.getRouteId());
+            if (geometry == null || geometry.stopCount() < 2) {
+                continue;
+            }
+            List<LocationFix> fixes = historyStore.findRecent(state.getBusId(), since);
+            Track track = null;
+            // findRecent 는 최신순이므로 뒤에서부터 시간순으로 진행한다
+            for (int i = fixes.size() - 1; i >= 0; i--) {
+                LocationFix fix = fixes.get(i);
+                RouteGeometry.Projection projection = geometry.project(fix.getLatitude(), fix.getLongitude());
+                if (projection.getOffsetMeters() > maxOffsetMeters) {
+                    continue;
+                }
+                track = advance(track, state.getRouteId(), geometry, projection.getDistance(), fix.getTimestamp());
+            }
+            if (track != null) {
+                learned += track.segmentsLearned;
+            }
+        }
+        log.info("ETA engine learned {} segment traversals from the last {} hours of history", learned, learningHours);
+    }
+
+    /**
+     * 위치 반영 후 예측 갱신. 경로에 대응되지 않은 위치 (routeDistance 가 null) 는 이전 예측을 유지한다.
+     */
+    public Prediction observe(Long busId, Long routeId, Double routeDistance, long timestampMillis) {
+        RouteGeometry geometry = routeShapeIndex.get(routeId);
+        if (geometry == null || routeDistance == null) {
+            Track track = tracks.get(busId);
+            return track != null && Objects.equals(track.routeId, routeId) ? track.prediction : null;
+        }
+        Track track = tracks.compute(busId, (id, previous) ->
+            advance(previous, routeId, geometry, routeDistance, timestampMillis));
+        return track.prediction;
+    }
+
+    /**
+     * 버스의 하류 정류장 도착 예측 (가까운 순)
+     */
+    public List<StopArrival> getArrivals(Long busId) {
+        Prediction prediction = prediction(busId);
+        if (prediction == null) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        List<StopArrival> arrivals = new ArrayList<>(prediction.size());
+        for (int i = 0; i < prediction.size(); i++) {
+            long seconds = Math.max(0, (prediction.arrivalMillis[i] - now) / 1000);
+            arrivals.add(new StopArrival(prediction.stopIds[i], prediction.stopNames[i], prediction.sequences[i],
+                prediction.remainingMeters[i], seconds,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(prediction.arrivalMillis[i]), ZoneId.systemDefault())));
+        }
+        return arrivals;
+    }
+
+    /**
+     * 하류 정류장 ID -> 남은 시간 (분, 올림). 노선 경로상 위치를 모르면 null
+     */
+    public Map<Long, Integer> upcomingMinutes(Long busId) {
+        Prediction prediction = prediction(busId);
+        if (prediction == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, Integer> minutes = new HashMap<>();
+        for (int i = 0; i < prediction.size(); i++) {
+            minutes.putIfAbsent(prediction.stopIds[i], prediction.minutesAt(i, now));
+        }
+        return minutes;
+    }
+
+    /**
+     * 정류장까지 남은 시간 (분, 올림). 하류 정류장이 아니면 null
+     */
+    public Integer minutesToStop(Long busId, String stopName) {
+        Prediction prediction = prediction(busId);
+        int index = prediction != null ? prediction.indexOf(stopName) : -1;
+        return index >= 0 ? prediction.minutesAt(index, System.currentTimeMillis()) : null;
+    }
+
+    /**
+     * 정류장까지 남은 노선 경로상 거리 (미터). 하류 정류장이 아니면 null
+     */
+    public Double distanceToStop(Long busId, String stopName) {
+        Prediction prediction = prediction(busId);
+        int index = prediction != null ? prediction.indexOf(stopName) : -1;
+        return index >= 0 ? prediction.remainingMeters[index] : null;
+    }
+
+    /**
+     * 버스 예측 삭제 (버스 삭제 시)
+     */
+    public void reset(Long busId) {
+        tracks.remove(busId);
+    }
+
+    private Prediction prediction(Long busId) {
+        Track track = tracks.get(busId);
+        return track != null ? track.prediction : null;
+    }
+
+    private Track advance(Track previous, Long routeId, RouteGeometry geometry, double distance, long timestampMillis) {
+        SegmentTimes times = segmentTimes.compute(routeId, (id, existing) ->
+            existing != null && existing.geometry == geometry ? existing : new SegmentTimes(geometry, existing));
+
+        Track track = previous != null && Objects.equals(previous.routeId, routeId) && previous.geometry == geometry
+            ? previous : new Track(routeId, geometry);
+        if (track.timestampMillis != 0 && timestampMillis <= track.timestampMillis) {
+            return track;
+        }
+
+        if (track.timestampMillis != 0) {
+            double moved = distance - track.distance;
+            if (Math.abs(moved) >= DIRECTION_THRESHOLD_METERS && moved * track.direction < 0) {
+                // 회차: 통과 기록은 같은 방향 안에서만 구간 시간으로 쓴다
+                track.direction = -track.direction;
+                track.passedStop = -1;
+            } else if (moved * track.direction > 0) {
+                recordPassedStops(track, times, geometry, distance, timestampMillis);
+            }
+        }
+        track.distance = distance;
+        track.timestampMillis = timestampMillis;
+        track.prediction = predict(track, times, geometry);
+        return track;
+    }
+
+    // 이전 위치와 현재 위치 사이에 지난 정류장의 통과 시각을 보간해 구간 시간을 학습한다
+    private void recordPassedStops(Track track, SegmentTimes times, RouteGeometry geometry,
+                                   double distance, long timestampMillis) {
+        double from = track.distance;
+        long fromMillis = track.timestampMillis;
+        int stopCount = geometry.stopCount();
+        int first = track.direction > 0 ? geometry.nextStopIndex(from) : geometry.nextStopIndex(from) - 1;
+        for (int stop = first; stop >= 0 && stop < stopCount; stop += track.direction) {
+            double stopDistance = geometry.stopDistance(stop);
+            boolean passed = track.direction > 0
+                ? stopDistance > from && stopDistance <= distance
+                : stopDistance < from && stopDistance >= distance;
+            if (!passed) {
+                if (track.direction > 0 ? stopDistance > distance : stopDistance < distance) {
+                    break;
+                }
+                continue;
+            }
+            long passedMillis = fromMillis + Math.round((stopDistance - from) / (distance - from) * (timestampMillis - fromMillis));
+            if (track.passedStop == stop - track.direction) {
+                double seconds = (passedMillis - track.passedMillis) / 1000.0;
+                int segment = Math.min(stop, track.passedStop);
+                double expected = times.seconds(track.direction, segment, defaultSpeedMetersPerSecond);
+                if (seconds > 0 && times.learn(track.direction, segment, seconds, alpha)) {
+                    track.pace = Math.max(MIN_PACE, Math.min(MAX_PACE,
+                        (1 - alpha) * track.pace + alpha * (seconds / expected)));
+                    track.segmentsLearned++;
+                }
+            }
+            track.passedStop = stop;
+            track.passedMillis = passedMillis;
+        }
+    }
+
+    private Prediction predict(Track track, SegmentTimes times, RouteGeometry geometry) {
+        int stopCount = geometry.stopCount();
+        double distance = track.distance;
+        int direction = track.direction;
+        int next = geometry.nextStopIndex(distance);
+        if (direction < 0 && (next >= stopCount || geometry.stopDistance(next) > distance)) {
+            next--;
+        }
+        int count = direction > 0 ? stopCount - next : next + 1;
+        if (next < 0 || next >= stopCount || count <= 0) {
+            return Prediction.EMPTY;
+        }
+
+        Prediction prediction = new Prediction(count);
+        double seconds;
+        int previous = next - direction;
+        if (previous < 0 || previous >= stopCount) {
+            // 첫 정류장 전: 기본 속도로 접근
+            seconds = Math.abs(geometry.stopDistance(next) - distance) / defaultSpeedMetersPerSecond;
+        } else {
+            int segment = Math.min(next, previous);
+            double length = Math.abs(geometry.stopDistance(next) - geometry.stopDistance(previous));
+            double remaining = Math.abs(geometry.stopDistance(next) - distance);
+            double fraction = length > 0 ? Math.min(1, remaining / length) : 0;
+            seconds = fraction * times.seconds(direction, segment, defaultSpeedMetersPerSecond);
+        }
+        seconds *= track.pace;
+
+        for (int i = 0, stop = next; i < count; i++, stop += direction) {
+            if (i > 0) {
+                int segment = Math.min(stop, stop - direction);
+                seconds += times.seconds(direction, segment, defaultSpeedMetersPerSecond) * track.pace;
+            }
+            prediction.stopIds[i] = geometry.stopId(stop);
+            prediction.stopNames[i] = geometry.stopName(stop);
+            prediction.sequences[i] = stop;
+            prediction.remainingMeters[i] = Math.abs(geometry.stopDistance(stop) - distance);
+            prediction.arrivalMillis[i] = track.timestampMillis + Math.round(seconds * 1000);
+        }
+        return prediction;
+    }
+
+    /**
+     * 버스 한 대의 하류 정류장 도착 예측 (불변, 위치 수신 시 통째로 교체)
+     */
+    public static final class Prediction {
+
+        static final Prediction EMPTY = new Prediction(0);
+
+        final long[] stopIds;
+        final String[] stopNames;
+        final int[] sequences;
+        final double[] remainingMeters;  // 노선 경로상 남은 거리
+        final long[] arrivalMillis;  // 예상 도착 시각 (epoch millis)
+
+        Prediction(int size) {
+            stopIds = new long[size];
+            stopNames = new String[size];
+            sequences = new int[size];
+            remainingMeters = new double[size];
+            arrivalMillis = new long[size];
+        }
+
+        public int size() {
+            return stopIds.length;
+        }
+
+        public long stopId(int index) {
+            return stopIds[index];
+        }
+
+        public String stopName(int index) {
+            return stopNames[index];
+        }
+
+        public int sequence(int index) {
+            return sequences[index];
+        }
+
+        public double remainingMeters(int index) {
+            return remainingMeters[index];
+        }
+
+        public long arrivalMillis(int index) {
+            return arrivalMillis[index];
+        }
+
+        public int minutesAt(int index, long nowMillis) {
+            return (int) Math.max(0, (arrivalMillis[index] - nowMillis + 59_999) / 60_000);
+        }
+
+        int indexOf(String stopName) {
+            for (int i = 0; i < stopNames.length; i++) {
+                if (stopNames[i].equals(stopName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 노선 한 개의 방향별 구간 소요 시간. 인덱스 i 는 정류장 i 와 i+1 사이 구간이다.
+     */
+    private static final class SegmentTimes {
+
+        final RouteGeometry geometry;
+        final double[][] seconds;  // [0] 정방향, [1] 역방향, 0 이면 미학습
+
+        SegmentTimes(RouteGeometry geometry, SegmentTimes previous) {
+            this.geometry = geometry;
+            int segments = Math.max(0, geometry.stopCount() - 1);
+            this.seconds = new double[2][segments];
+            // 정류장 구성이 같으면 경로가 다시 로드돼도 학습값을 이어 쓴다
+            if (previous != null && previous.seconds[0].length == segments) {
+                System.arraycopy(previous.seconds[0], 0, seconds[0], 0, segments);
+                System.arraycopy(previous.seconds[1], 0, seconds[1], 0, segments);
+            }
+        }
+
+        synchronized double seconds(int direction, int segment, double defaultSpeed) {
+            double learned = seconds[direction > 0 ? 0 : 1][segment];
+            if (learned > 0) {
+                return learned;
+            }
+            return (geometry.stopDistance(segment + 1) - geometry.stopDistance(segment)) / defaultSpeed;
+        }
+
+        synchronized boolean learn(int direction, int segment, double observed, double alpha) {
+            // 한 시간을 넘는 구간은 운행 중단 (차고지, 장시간 정차) 으로 보고 버린다
+            if (observed > 3600) {
+                return false;
+            }
+            double[] times = seconds[direction > 0 ? 0 : 1];
+            times[segment] = times[segment] > 0 ? (1 - alpha) * times[segment] + alpha * observed : observed;
+            return true;
+        }
+    }
+
+    private static final class Track {
+
+        final Long routeId;
+        final RouteGeometry geometry;
+        double distance;
+        long timestampMillis;
+        int direction = 1;
+        int passedStop = -1;  // 마지막으로 지난 정류장 (같은 방향 안에서)
+        long passedMillis;
+        double pace = 1.0;  // 최근 구간의 실제/학습 소요 시간 비율
+        int segmentsLearned;
+        volatile Prediction prediction = Prediction.EMPTY;
+
+        Track(Long routeId, RouteGeometry geometry) {
+            this.routeId = routeId;
+            this.geometry = geometry;
+        }
+    }
+}
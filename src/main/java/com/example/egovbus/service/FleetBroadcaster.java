@@ -0,0 +1,300 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.BusPosition;
+import com.example.egovbus.dto.FleetUpdate;
+import com.example.egovbus.model.BusStatus;
+import com.example.egovbus.model.LiveBusState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Fleet Broadcaster
+ * 운행 중 버스 실시간 피드의 버전 관리.
+ *
+ * 마지막으로 내보낸 상태 (view) 와 현재 상태를 비교해 위치, 상태, 탑승객 수가 바뀐 버스와
+ * 피드에서 빠진 버스만 델타로 만든다. 바뀐 것이 없으면 메시지를 만들지 않으므로
+ * 전송량과 직렬화 비용은 함대 크기가 아니라 변경량에 비례한다.
+ *
+ * 피드는 전체 (/topic/bus-locations), 노선별 (/topic/routes/{id}/buses),
+ * 지도 타일별 (/topic/tiles/{geohash 접두어}/buses) 샤드로 나뉘고, 샤드마다 버전과 view 를 따로 가진다.
+ * 구독자가 있는 샤드만 유지하며, 바뀐 버스마다 그 버스가 속했거나 새로 속한 샤드만 찾아 갱신한다.
+ * 스냅샷은 항상 샤드 view 에서 만들어 델타와 같은 버전 체계를 따른다.
+ */
+@Component
+public class FleetBroadcaster {
+
+    public static final String ALL_DESTINATION = "/topic/bus-locations";
+    private static final String ROUTE_PREFIX = "/topic/routes/";
+    private static final String TILE_PREFIX = "/topic/tiles/";
+    private static final String SHARD_SUFFIX = "/buses";
+
+    private final FleetStateStore fleetStateStore;
+    private final int minTilePrecision;
+    private final int maxTilePrecision;
+
+    // 마지막 tick 의 운행 중 버스 상태 (버스 ID -> 상태)
+    private Map<Long, LiveBusState> view = Collections.emptyMap();
+
+    // 구독 중인 샤드 (destination -> 샤드)
+    private final Map<String, Shard> shards = new HashMap<>();
+
+    // 구독 중인 타일 샤드의 geohash 길이별 개수
+    private final Map<Integer, Integer> tileLengths = new HashMap<>();
+
+    public FleetBroadcaster(FleetStateStore fleetStateStore,
+                            @Value("${bus.monitoring.broadcast.min-tile-precision:4}") int minTilePrecision,
+                            @Value("${bus.monitoring.broadcast.max-tile-precision:7}") int maxTilePrecision) {
+        this.fleetStateStore = fleetStateStore;
+        this.minTilePrecision = minTilePrecision;
+        this.maxTilePrecision = Math.min(maxTilePrecision, Geohash.MAX_PRECISION);
+    }
+
+    public static String routeDestination(Long routeId) {
+        return ROUTE_PREFIX + routeId + SHARD_SUFFIX;
+    }
+
+    public static String tileDestination(String geohash) {
+        return TILE_PREFIX + geohash + SHARD_SUFFIX;
+    }
+
+    /**
+     * 구독 가능한 피드 destination 인지 (전체, 노선별, 허용 길이의 타일별)
+     */
+    public boolean isFeed(String destination) {
+        return filterOf(destination) != null;
+    }
+
+    /**
+     * 샤드 사용 시작 (STOMP 구독, SSE 스트림 등 사용처마다 한 번, 첫 사용 시 샤드를 만든다)
+     */
+    public synchronized void open(String destination) {
+        shard(destination).references++;
+    }
+
+    /**
+     * 샤드 사용 종료 (마지막 사용처가 떠나면 샤드 정리)
+     */
+    public synchronized void close(String destination) {
+        Shard shard = shards.get(destination);
+        if (shard == null || --shard.references > 0) {
+            return;
+        }
+        shards.remove(destination);
+        if (shard.tileLength > 0) {
+            tileLengths.computeIfPresent(shard.tileLength, (length, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * 샤드의 현재 버전 전체 피드.
+     * 아직 열리지 않은 샤드는 열지 않고 버전 0 으로 만든다 (토픽을 먼저 구독해야 이어지는 델타를 받는다).
+     */
+    public synchronized FleetUpdate snapshot(String destination) {
+        Shard shard = shards.get(destination);
+        if (shard == null) {
+            shard = newShard(destination);
+        }
+        return FleetUpdate.snapshot(shard.version, positions(shard.view.values()));
+    }
+
+    /**
+     * 지난 tick 이후 변경분을 구독 중인 샤드별 델타로 (변경이 없으면 빈 목록)
+     */
+    public synchronized List<Publication> tick() {
+        Map<Long, LiveBusState> current = new HashMap<>();
+        List<LiveBusState> changed = new ArrayList<>();
+        for (LiveBusState state : fleetStateStore.states()) {
+            if (state.getStatus() != BusStatus.ACTIVE) {
+                continue;
+            }
+            current.put(state.getBusId(), state);
+            LiveBusState previous = view.get(state.getBusId());
+            if (previous == null || hasChanged(previous, state)) {
+                changed.add(state);
+            }
+        }
+        List<Long> removed = new ArrayList<>();
+        for (Long busId : view.keySet()) {
+            if (!current.containsKey(busId)) {
+                removed.add(busId);
+            }
+        }
+        Map<Long, LiveBusState> previousView = view;
+        view = current;
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 바뀐 버스가 영향을 주는 샤드만 모은다 (이전 소속 + 현재 소속)
+        Map<Shard, ShardChanges> affected = new LinkedHashMap<>();
+        for (LiveBusState state : changed) {
+            for (String destination : destinationsOf(previousView.get(state.getBusId()), state)) {
+                Shard shard = shards.get(destination);
+                if (shard == null) {
+                    continue;
+                }
+                ShardChanges changes = affected.computeIfAbsent(shard, key -> new ShardChanges());
+                if (shard.filter.test(state)) {
+                    shard.view.put(state.getBusId(), state);
+                    changes.changed.add(state);
+                } else if (shard.view.remove(state.getBusId()) != null) {
+                    changes.removed.add(state.getBusId());
+                }
+            }
+        }
+        for (Long busId : removed) {
+            for (String destination : destinationsOf(previousView.get(busId), null)) {
+                Shard shard = shards.get(destination);
+                if (shard != null && shard.view.remove(busId) != null) {
+                    affected.computeIfAbsent(shard, key -> new ShardChanges()).removed.add(busId);
+                }
+            }
+        }
+
+        List<Publication> publications = new ArrayList<>();
+        affected.forEach((shard, changes) -> {
+            if (changes.changed.isEmpty() && changes.removed.isEmpty()) {
+                return;
+            }
+            shard.version++;
+            publications.add(new Publication(shard.destination, FleetUpdate.delta(shard.version, shard.version - 1,
+                positions(changes.changed), changes.removed)));
+        });
+        return publications;
+    }
+
+    // 버스가 속할 수 있는 샤드 destination (구독 중인 타일 길이만)
+    private Set<String> destinationsOf(LiveBusState previous, LiveBusState current) {
+        Set<String> destinations = new LinkedHashSet<>();
+        destinations.add(ALL_DESTINATION);
+        for (LiveBusState state : new LiveBusState[]{previous, current}) {
+            if (state == null) {
+                continue;
+            }
+            if (state.getRouteId() != null) {
+                destinations.add(routeDestination(state.getRouteId()));
+            }
+            if (state.hasPosition() && !tileLengths.isEmpty()) {
+                String hash = Geohash.encode(state.getLatitude(), state.getLongitude(), Geohash.MAX_PRECISION);
+                for (Integer length : tileLengths.keySet()) {
+                    destinations.add(tileDestination(hash.substring(0, length)));
+                }
+            }
+        }
+        return destinations;
+    }
+
+    private Shard shard(String destination) {
+        Shard existing = shards.get(destination);
+        if (existing != null) {
+            return existing;
+        }
+        Shard shard = newShard(destination);
+        shards.put(destination, shard);
+        if (shard.tileLength > 0) {
+            tileLengths.merge(shard.tileLength, 1, Integer::sum);
+        }
+        return shard;
+    }
+
+    private Shard newShard(String destination) {
+        Predicate<LiveBusState> filter = filterOf(destination);
+        if (filter == null) {
+            throw new IllegalArgumentException("Unknown live feed destination: " + destination);
+        }
+        int tileLength = destination.startsWith(TILE_PREFIX)
+            ? destination.length() - TILE_PREFIX.length() - SHARD_SUFFIX.length() : 0;
+        Shard shard = new Shard(destination, filter, tileLength);
+        view.values().stream().filter(filter).forEach(state -> shard.view.put(state.getBusId(), state));
+        return shard;
+    }
+
+    private Predicate<LiveBusState> filterOf(String destination) {
+        if (ALL_DESTINATION.equals(destination)) {
+            return state -> true;
+        }
+        if (destination == null || !destination.endsWith(SHARD_SUFFIX)) {
+            return null;
+        }
+        if (destination.startsWith(ROUTE_PREFIX)) {
+            String id = destination.substring(ROUTE_PREFIX.length(), destination.length() - SHARD_SUFFIX.length());
+            try {
+                Long routeId = Long.valueOf(id);
+                return state -> routeId.equals(state.getRouteId());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (destination.startsWith(TILE_PREFIX)) {
+            String prefix = destination.substring(TILE_PREFIX.length(), destination.length() - SHARD_SUFFIX.length());
+            if (!Geohash.isValid(prefix) || prefix.length() < minTilePrecision || prefix.length() > maxTilePrecision) {
+                return null;
+            }
+            return state -> state.hasPosition()
+                && Geohash.encode(state.getLatitude(), state.getLongitude(), prefix.length()).equals(prefix);
+        }
+        return null;
+    }
+
+    // 버스 ID 순 피드 레코드 (JPA 엔티티를 거치지 않는다)
+    private static List<BusPosition> positions(Collection<LiveBusState> states) {
+        return states.stream()
+            .sorted(Comparator.comparing(LiveBusState::getBusId))
+            .map(BusPosition::of)
+            .collect(Collectors.toList());
+    }
+
+    private static boolean hasChanged(LiveBusState previous, LiveBusState current) {
+        return !Objects.equals(previous.getLatitude(), current.getLatitude())
+            || !Objects.equals(previous.getLongitude(), current.getLongitude())
+            || previous.getStatus() != current.getStatus()
+            || !Objects.equals(previous.getPassengers(), current.getPassengers())
+            || !Objects.equals(previous.getRouteId(), current.getRouteId());
+    }
+
+    /**
+     * 샤드 하나에 보낼 메시지
+     */
+    @lombok.Value
+    public static class Publication {
+
+        String destination;
+
+        FleetUpdate update;
+    }
+
+    private static final class Shard {
+
+        final String destination;
+        final Predicate<LiveBusState> filter;
+        final int tileLength;  // 타일 샤드가 아니면 0
+        final Map<Long, LiveBusState> view = new HashMap<>();
+        long version;
+        int references;  // open() 횟수
+
+        Shard(String destination, Predicate<LiveBusState> filter, int tileLength) {
+            this.destination = destination;
+            this.filter = filter;
+            this.tileLength = tileLength;
+        }
+    }
+
+    private static final class ShardChanges {
+
+        final List<LiveBusState> changed = new ArrayList<>();
+        final List<Long> removed = new ArrayList<>();
+    }
+}
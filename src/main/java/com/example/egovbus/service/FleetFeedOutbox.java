@@ -0,0 +1,330 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.BusPosition;
+import com.example.egovbus.dto.FleetUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fleet Feed Outbox
+ * 세션별 실시간 피드 흐름 제어 (느린 클라이언트의 델타 병합).
+ *
+ * 구독마다 소켓에 아직 쓰이지 않은 피드 프레임은 최대 하나만 둔다. 앞 프레임이 쓰이기 전에 온 델타는
+ * 보내지 않고 버스별 최신 위치만 남겨 병합해 두었다가, 앞 프레임이 쓰이는 순간 하나의 델타
+ * (baseVersion = 마지막으로 내보낸 버전) 로 보낸다. 따라서 느린 세션은 중간 프레임을 건너뛰고
+ * 늦은 위치를 받지 않으며, 세션당 메모리는 구독 샤드 크기로 묶인다.
+ *
+ * 쓰기 완료는 WebSocket 세션 데코레이터에서, 프레임 수락과 병합은 clientOutboundChannel 인터셉터에서 처리한다.
+ * 쓰이지 않은 피드 바이트가 bus.monitoring.broadcast.session-byte-budget 을 넘는 세션은 끊는다.
+ */
+@Component
+@Slf4j
+public class FleetFeedOutbox implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    /** 브로커로 보내는 피드 메시지에 실어 두는 FleetUpdate (STOMP 헤더로는 나가지 않는다) */
+    public static final String UPDATE_HEADER = "fleetUpdate";
+
+    private static final String MERGED_HEADER = "fleetMerged";
+    private static final String MESSAGE_FRAME = "MESSAGE\n";
+    private static final String SUBSCRIPTION_HEADER = "\nsubscription:";
+
+    private final FleetBroadcaster fleetBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final MessageChannel clientOutboundChannel;
+    private final long sessionByteBudget;
+    private final Counter conflated;
+    private final Counter merged;
+    private final Counter disconnected;
+
+    // 세션 ID -> 세션 상태
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    public FleetFeedOutbox(FleetBroadcaster fleetBroadcaster,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                           @Value("${bus.monitoring.broadcast.session-byte-budget:262144}") long sessionByteBudget) {
+        this.fleetBroadcaster = fleetBroadcaster;
+        this.objectMapper = objectMapper;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.sessionByteBudget = sessionByteBudget;
+
+        Gauge.builder("bus.broadcast.sessions", outboxes, Map::size)
+            .description("Open WebSocket sessions tracked for live feed flow control")
+            .register(meterRegistry);
+        this.conflated = Counter.builder("bus.broadcast.frames.conflated")
+            .description("Live feed deltas folded into a pending update instead of being sent")
+            .register(meterRegistry);
+        this.merged = Counter.builder("bus.broadcast.frames.merged")
+            .description("Merged live feed deltas sent to sessions that fell behind")
+            .register(meterRegistry);
+        this.disconnected = Counter.builder("bus.broadcast.sessions.disconnected")
+            .tag("reason", "byte_budget")
+            .description("Sessions closed for exceeding the outbound byte budget")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 세션으로 나가는 피드 델타: 앞 프레임이 쓰였으면 그대로 보내고, 아니면 병합해 두고 버린다
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        Object header = headers.get(UPDATE_HEADER);
+        if (!(header instanceof FleetUpdate) || headers.containsKey(MERGED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+        Outbox outbox = outboxes.get(SimpMessageHeaderAccessor.getSessionId(headers));
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (outbox == null || subscriptionId == null || !fleetBroadcaster.isFeed(destination)) {
+            return message;
+        }
+
+        FleetUpdate update = (FleetUpdate) header;
+        int size = ((byte[]) message.getPayload()).length;
+        boolean overBudget;
+        synchronized (outbox) {
+            Feed feed = outbox.feeds.computeIfAbsent(subscriptionId, id -> new Feed(destination));
+            if (!feed.inFlight) {
+                feed.inFlight = true;
+                feed.inFlightBytes = size;
+                feed.deliveredVersion = update.getVersion();
+                return message;
+            }
+            feed.merge(update, size);
+            conflated.increment();
+            overBudget = outbox.bytes() > sessionByteBudget;
+        }
+        if (overBudget) {
+            disconnect(outbox);
+        }
+        return null;
+    }
+
+    /**
+     * STOMP WebSocket 핸들러에 쓰기 완료 추적을 붙인다
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                outboxes.put(session.getId(), new Outbox(session));
+                super.afterConnectionEstablished(new TrackingSession(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                outboxes.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 구독 해제된 피드의 대기 상태 정리
+     */
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        MessageHeaders headers = event.getMessage().getHeaders();
+        Outbox outbox = outboxes.get(SimpMessageHeaderAccessor.getSessionId(headers));
+        if (outbox != null) {
+            synchronized (outbox) {
+                outbox.feeds.remove(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+            }
+        }
+    }
+
+    // 소켓에 프레임이 쓰인 뒤: 그 구독에 병합된 델타가 있으면 바로 보낸다
+    private void afterWrite(String sessionId, WebSocketMessage<?> written) {
+        String subscriptionId = subscriptionOf(written);
+        Outbox outbox = subscriptionId != null ? outboxes.get(sessionId) : null;
+        if (outbox == null) {
+            return;
+        }
+        Message<byte[]> next;
+        synchronized (outbox) {
+            Feed feed = outbox.feeds.get(subscriptionId);
+            if (feed == null || !feed.inFlight) {
+                return;
+            }
+            if (feed.pendingVersion == 0) {
+                feed.inFlight = false;
+                feed.inFlightBytes = 0;
+                return;
+            }
+            FleetUpdate update = feed.drain();
+            try {
+                next = frame(sessionId, subscriptionId, feed.destination, update);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to encode merged live feed update for session {}: {}", sessionId, e.getMessage());
+                feed.inFlight = false;
+                feed.inFlightBytes = 0;
+                return;
+            }
+            feed.inFlightBytes = next.getPayload().length;
+        }
+        merged.increment();
+        clientOutboundChannel.send(next);
+    }
+
+    private Message<byte[]> frame(String sessionId, String subscriptionId, String destination, FleetUpdate update)
+            throws JsonProcessingException {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(MERGED_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(objectMapper.writeValueAsBytes(update), accessor.getMessageHeaders());
+    }
+
+    private void disconnect(Outbox outbox) {
+        if (outboxes.remove(outbox.session.getId()) == null) {
+            return;
+        }
+        disconnected.increment();
+        log.warn("Closing WebSocket session {}: live feed backlog over {} bytes", outbox.session.getId(), sessionByteBudget);
+        try {
+            outbox.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close session {}: {}", outbox.session.getId(), e.getMessage());
+        }
+    }
+
+    // STOMP MESSAGE 프레임의 subscription 헤더 (다른 프레임은 null)
+    private static String subscriptionOf(WebSocketMessage<?> written) {
+        if (!(written instanceof TextMessage)) {
+            return null;
+        }
+        String frame = ((TextMessage) written).getPayload();
+        if (!frame.startsWith(MESSAGE_FRAME)) {
+            return null;
+        }
+        int headersEnd = frame.indexOf("\n\n");
+        int start = frame.indexOf(SUBSCRIPTION_HEADER);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += SUBSCRIPTION_HEADER.length();
+        int end = frame.indexOf('\n', start);
+        return end < 0 ? null : frame.substring(start, end);
+    }
+
+    private final class TrackingSession extends WebSocketSessionDecorator {
+
+        TrackingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            afterWrite(getId(), message);
+        }
+    }
+
+    private static final class Outbox {
+
+        final WebSocketSession session;
+        final Map<String, Feed> feeds = new HashMap<>();  // 구독 ID -> 피드 상태
+
+        Outbox(WebSocketSession session) {
+            this.session = session;
+        }
+
+        long bytes() {
+            long total = 0;
+            for (Feed feed : feeds.values()) {
+                total += feed.inFlightBytes + feed.pendingBytes();
+            }
+            return total;
+        }
+    }
+
+    // 구독 하나의 병합 상태 (테스트에서 직접 확인하므로 패키지 공개)
+    static final class Feed {
+
+        final String destination;
+        boolean inFlight;  // 소켓에 아직 쓰이지 않은 프레임이 있는지
+        long inFlightBytes;
+        long deliveredVersion;  // 마지막으로 내보낸 프레임의 버전
+        long pendingVersion;  // 병합된 델타의 버전 (없으면 0)
+        final Map<Long, BusPosition> pendingBuses = new LinkedHashMap<>();
+        final Set<Long> pendingRemoved = new LinkedHashSet<>();
+        double bytesPerEntry;
+
+        Feed(String destination) {
+            this.destination = destination;
+        }
+
+        void merge(FleetUpdate update, int size) {
+            for (BusPosition position : update.getBuses()) {
+                pendingBuses.put(position.getId(), position);
+                pendingRemoved.remove(position.getId());
+            }
+            for (Long busId : update.getRemoved()) {
+                pendingBuses.remove(busId);
+                pendingRemoved.add(busId);
+            }
+            pendingVersion = update.getVersion();
+            int entries = update.getBuses().size() + update.getRemoved().size();
+            bytesPerEntry = Math.max(bytesPerEntry, (double) size / Math.max(1, entries));
+        }
+
+        long pendingBytes() {
+            return (long) ((pendingBuses.size() + pendingRemoved.size()) * bytesPerEntry);
+        }
+
+        FleetUpdate drain() {
+            ArrayList<BusPosition> buses = new ArrayList<>(pendingBuses.values());
+            buses.sort(Comparator.comparingLong(BusPosition::getId));
+            FleetUpdate update = FleetUpdate.delta(pendingVersion, deliveredVersion, buses, new ArrayList<>(pendingRemoved));
+            deliveredVersion = pendingVersion;
+            pendingVersion = 0;
+            pendingBuses.clear();
+            pendingRemoved.clear();
+            return update;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.FleetUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fleet Feed Publisher
+ * 샤드별 델타를 한 번만 JSON 으로 직렬화해 브로커와 SSE 스트림으로 보낸다.
+ *
+ * 메시지 변환기를 거치지 않고 미리 만든 byte[] 를 그대로 보내므로, 브로커가 구독 세션마다 메시지를 복제해도
+ * 같은 페이로드 배열을 공유한다. tick 당 비용은 샤드마다 직렬화 한 번이고 구독자 수에 따라 늘지 않는다.
+ */
+@Component
+@Slf4j
+public class FleetFeedPublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final FleetSseHub fleetSseHub;
+    private final Timer encodeTimer;
+    private final DistributionSummary frameSize;
+
+    public FleetFeedPublisher(SimpMessagingTemplate messagingTemplate,
+                              ObjectMapper objectMapper,
+                              FleetSseHub fleetSseHub,
+                              MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.fleetSseHub = fleetSseHub;
+        this.encodeTimer = Timer.builder("bus.broadcast.encode.latency")
+            .description("Time spent serializing one live feed frame")
+            .register(meterRegistry);
+        this.frameSize = DistributionSummary.builder("bus.broadcast.frame.size")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 샤드별 메시지 전송 (직렬화 실패한 샤드는 건너뛴다)
+     */
+    public void publish(List<FleetBroadcaster.Publication> publications) {
+        for (FleetBroadcaster.Publication publication : publications) {
+            try {
+                Message<byte[]> frame = frame(publication.getUpdate());
+                messagingTemplate.send(publication.getDestination(), frame);
+                fleetSseHub.publish(publication.getDestination(), publication.getUpdate(), frame.getPayload());
+            } catch (JsonProcessingException e) {
+                log.error("Failed to encode live feed update for {}: {}", publication.getDestination(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 공유 가능한 JSON 프레임 (payload 는 이후 바뀌지 않는다)
+     */
+    public Message<byte[]> frame(FleetUpdate update) throws JsonProcessingException {
+        long start = System.nanoTime();
+        byte[] payload = objectMapper.writeValueAsBytes(update);
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        frameSize.record(payload.length);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(FleetFeedOutbox.UPDATE_HEADER, update);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.egovbus.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fleet Feed Subscriptions
+ * 실시간 피드 샤드의 구독자 수 관리.
+ *
+ * STOMP SUBSCRIBE / UNSUBSCRIBE / DISCONNECT 이벤트로 세션별 구독을 기억하고,
+ * 첫 구독자가 생기면 샤드를 열고 마지막 구독자가 떠나면 닫는다.
+ * 구독자가 없는 샤드는 FleetBroadcaster 가 델타를 만들지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FleetFeedSubscriptions {
+
+    private final FleetBroadcaster fleetBroadcaster;
+
+    // 세션 ID -> (구독 ID -> destination)
+    private final Map<String, Map<String, String>> sessions = new HashMap<>();
+
+    // destination -> 구독 수
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null
+                || !fleetBroadcaster.isFeed(destination)) {
+            return;
+        }
+        synchronized (this) {
+            String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new HashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+            if (previous != null) {
+                release(previous);
+            }
+            if (counts.merge(destination, 1, Integer::sum) == 1) {
+                fleetBroadcaster.open(destination);
+                log.debug("Live feed shard opened: {}", destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        synchronized (this) {
+            Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (subscriptions.isEmpty()) {
+                sessions.remove(accessor.getSessionId());
+            }
+            if (destination != null) {
+                release(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        synchronized (this) {
+            Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+            if (subscriptions != null) {
+                subscriptions.values().forEach(this::release);
+            }
+        }
+    }
+
+    /**
+     * destination 의 현재 구독 수
+     */
+    public synchronized int subscriberCount(String destination) {
+        return counts.getOrDefault(destination, 0);
+    }
+
+    private void release(String destination) {
+        Integer remaining = counts.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            fleetBroadcaster.close(destination);
+            log.debug("Live feed shard closed: {}", destination);
+        }
+    }
+}
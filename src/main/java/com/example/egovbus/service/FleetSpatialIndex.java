@@ -0,0 +1,255 @@
+package com.example.egovbus.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Fleet Spatial Index
+ * 버스 실시간 위치의 균등 격자 인덱스 (셀 크기: bus.monitoring.spatial.cell-size-degrees).
+ *
+ * FleetStateStore 가 위치를 바꿀 때마다 같은 버스에 대한 갱신이 직렬화된 상태에서 호출하므로,
+ * 버스가 셀 경계를 넘어가도 항상 정확히 한 셀에만 등록된다.
+ *
+ * 최근접 검색은 질의 셀에서 바깥 고리 순으로 셀을 방문하며, 다음 고리까지의 최소 거리가
+ * 현재 k번째 거리보다 멀어지면 멈춘다 (등장방형 근사 거리, 도시 규모에서 충분히 정확).
+ */
+@Component
+public class FleetSpatialIndex {
+
+    private static final double METERS_PER_DEGREE = 6_371_000 * Math.PI / 180;
+
+    private final double cellSize;
+
+    // 한 번이라도 사용된 셀의 범위 (최근접 검색 종료 조건, 줄어들지 않음)
+    private volatile int minRow = Integer.MAX_VALUE;
+    private volatile int maxRow = Integer.MIN_VALUE;
+    private volatile int minColumn = Integer.MAX_VALUE;
+    private volatile int maxColumn = Integer.MIN_VALUE;
+
+    // 셀 키 -> 버스 ID
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    // 버스 ID -> 현재 위치
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public FleetSpatialIndex(@Value("${bus.monitoring.spatial.cell-size-degrees:0.01}") double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * 위치 갱신 (위치가 없으면 제거)
+     */
+    public void update(Long busId, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            remove(busId);
+            return;
+        }
+        int row = row(latitude);
+        int column = column(longitude);
+        if (row < minRow || row > maxRow || column < minColumn || column > maxColumn) {
+            expandBounds(row, column);
+        }
+        Entry next = new Entry(busId, latitude, longitude, cellKey(row, column));
+        Entry previous = entries.put(busId, next);
+        if (previous != null && previous.cell == next.cell) {
+            return;
+        }
+        // 빈 셀 제거와 겹치지 않도록 셀 단위로 원자적으로 추가한다
+        cells.compute(next.cell, (key, busIds) -> {
+            Set<Long> members = busIds != null ? busIds : ConcurrentHashMap.newKeySet();
+            members.add(busId);
+            return members;
+        });
+        if (previous != null) {
+            removeFromCell(previous.cell, busId);
+        }
+    }
+
+    public void remove(Long busId) {
+        Entry previous = entries.remove(busId);
+        if (previous != null) {
+            removeFromCell(previous.cell, busId);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 영역 안의 버스 ID
+     */
+    public List<Long> findInArea(double minLat, double maxLat, double minLon, double maxLon) {
+        List<Long> result = new ArrayList<>();
+        if (minLat > maxLat || minLon > maxLon) {
+            return result;
+        }
+        int minRow = row(minLat);
+        int maxRow = row(maxLat);
+        int minColumn = column(minLon);
+        int maxColumn = column(maxLon);
+
+        long covered = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+        if (covered > cells.size()) {
+            // 영역이 넓으면 비어 있지 않은 셀만 확인한다
+            cells.forEach((cell, busIds) -> collectInArea(busIds, minLat, maxLat, minLon, maxLon, result));
+            return result;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Set<Long> busIds = cells.get(cellKey(row, column));
+                if (busIds != null) {
+                    collectInArea(busIds, minLat, maxLat, minLon, maxLon, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 가장 가까운 k대 (가까운 순). filter 를 통과한 버스만 대상이다.
+     */
+    public List<Neighbor> findNearest(double latitude, double longitude, int k, LongPredicate filter) {
+        List<Neighbor> result = new ArrayList<>();
+        if (k <= 0 || entries.isEmpty()) {
+            return result;
+        }
+        double metersPerLatitude = METERS_PER_DEGREE;
+        double metersPerLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        int maxRing = Math.max(Math.max(centerRow - minRow, maxRow - centerRow),
+            Math.max(centerColumn - minColumn, maxColumn - centerColumn));
+
+        PriorityQueue<Neighbor> farthestFirst =
+            new PriorityQueue<>(Comparator.comparingDouble(Neighbor::getDistanceMeters).reversed());
+        if ((long) maxRing * maxRing > entries.size()) {
+            // 질의 지점이 운행 지역에서 멀면 고리 탐색보다 전체 확인이 싸다
+            entries.values().forEach(entry -> offer(farthestFirst, k, entry, latitude, longitude,
+                metersPerLatitude, metersPerLongitude, filter));
+            maxRing = -1;
+        }
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (farthestFirst.size() == k && ring > 0) {
+                // 안쪽 (ring-1) 블록 경계까지의 거리 = 이 고리에 있는 버스의 최소 거리
+                double south = (latitude - (centerRow - ring + 1) * cellSize) * metersPerLatitude;
+                double north = ((centerRow + ring) * cellSize - latitude) * metersPerLatitude;
+                double west = (longitude - (centerColumn - ring + 1) * cellSize) * metersPerLongitude;
+                double east = ((centerColumn + ring) * cellSize - longitude) * metersPerLongitude;
+                double bound = Math.min(Math.min(south, north), Math.min(west, east));
+                if (bound > farthestFirst.peek().getDistanceMeters()) {
+                    break;
+                }
+            }
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+                    Set<Long> busIds = cells.get(cellKey(row, column));
+                    if (busIds == null) {
+                        continue;
+                    }
+                    for (Long busId : busIds) {
+                        Entry entry = entries.get(busId);
+                        if (entry != null) {
+                            offer(farthestFirst, k, entry, latitude, longitude,
+                                metersPerLatitude, metersPerLongitude, filter);
+                        }
+                    }
+                }
+            }
+        }
+
+        result.addAll(farthestFirst);
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceMeters));
+        return result;
+    }
+
+    private static void offer(PriorityQueue<Neighbor> farthestFirst, int k, Entry entry,
+                              double latitude, double longitude,
+                              double metersPerLatitude, double metersPerLongitude, LongPredicate filter) {
+        if (!filter.test(entry.busId)) {
+            return;
+        }
+        double dy = (entry.latitude - latitude) * metersPerLatitude;
+        double dx = (entry.longitude - longitude) * metersPerLongitude;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (farthestFirst.size() < k) {
+            farthestFirst.add(new Neighbor(entry.busId, distance));
+        } else if (distance < farthestFirst.peek().getDistanceMeters()) {
+            farthestFirst.poll();
+            farthestFirst.add(new Neighbor(entry.busId, distance));
+        }
+    }
+
+    private synchronized void expandBounds(int row, int column) {
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    private void collectInArea(Set<Long> busIds, double minLat, double maxLat, double minLon, double maxLon,
+                               List<Long> result) {
+        for (Long busId : busIds) {
+            Entry entry = entries.get(busId);
+            if (entry != null && entry.latitude >= minLat && entry.latitude <= maxLat
+                    && entry.longitude >= minLon && entry.longitude <= maxLon) {
+                result.add(busId);
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, Long busId) {
+        cells.computeIfPresent(cell, (key, busIds) -> {
+            busIds.remove(busId);
+            return busIds.isEmpty() ? null : busIds;
+        });
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellSize);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellSize);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 최근접 검색 결과
+     */
+    @lombok.Value
+    public static class Neighbor {
+
+        long busId;
+
+        double distanceMeters;
+    }
+
+    private static final class Entry {
+
+        final long busId;
+        final double latitude;
+        final double longitude;
+        final long cell;
+
+        Entry(long busId, double latitude, double longitude, long cell) {
+            this.busId = busId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+        }
+    }
+}
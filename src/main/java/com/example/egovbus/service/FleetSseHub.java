@@ -0,0 +1,383 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.FleetUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fleet SSE Hub
+ * Server-Sent Events 실시간 피드 (읽기 전용 승객 클라이언트용).
+ *
+ * STOMP 와 같은 샤드 델타를 FleetFeedPublisher 가 한 번 만든 JSON 바이트 그대로 모든 스트림에 쓴다.
+ * 연결은 서블릿 비동기 요청이라 대기 중에는 스레드를 잡지 않는다.
+ *
+ * 브로드캐스트 스레드와 연결 요청 스레드는 시청자별 전송 대기열에 이벤트를 넣기만 하고, 소켓 쓰기는
+ * 전송 풀 (bus.monitoring.sse.send-pool-size) 에서 시청자마다 작업 하나씩 순서대로 한다.
+ * 대기 이벤트가 bus.monitoring.sse.max-pending-events 개를 넘은 느린 시청자는 끊는다 (Last-Event-ID 로 재연결).
+ *
+ * 이벤트 ID 는 "{스트림 세대}:{버전}" 이다. 재연결 시 Last-Event-ID 가 같은 세대이고 최근 프레임
+ * (bus.monitoring.sse.replay-frames 개) 안이면 놓친 델타만 다시 보내고, 아니면 스냅샷부터 보낸다.
+ * 같은 버전의 스냅샷은 한 번만 직렬화한다.
+ */
+@Component
+@Slf4j
+public class FleetSseHub {
+
+    private final FleetBroadcaster fleetBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final int replayFrames;
+    private final long timeoutMillis;
+    private final int maxConnections;
+    private final int maxPendingEvents;
+    private final ThreadPoolTaskExecutor sender;
+    private final Counter replayed;
+    private final Counter snapshots;
+    private final Counter lagging;
+
+    // destination -> 스트림 (시청자가 있는 동안만)
+    private final Map<String, Stream> streams = new HashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public FleetSseHub(FleetBroadcaster fleetBroadcaster,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${bus.monitoring.sse.replay-frames:32}") int replayFrames,
+                       @Value("${bus.monitoring.sse.timeout:1800000}") long timeoutMillis,
+                       @Value("${bus.monitoring.sse.max-connections:20000}") int maxConnections,
+                       @Value("${bus.monitoring.sse.max-pending-events:64}") int maxPendingEvents,
+                       @Value("${bus.monitoring.sse.send-pool-size:8}") int sendPoolSize,
+                       @Value("${bus.monitoring.sse.send-queue-capacity:20000}") int sendQueueCapacity) {
+        this.fleetBroadcaster = fleetBroadcaster;
+        this.objectMapper = objectMapper;
+        this.replayFrames = replayFrames;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnections = maxConnections;
+        this.maxPendingEvents = maxPendingEvents;
+
+        this.sender = new ThreadPoolTaskExecutor();
+        sender.setCorePoolSize(sendPoolSize);
+        sender.setMaxPoolSize(sendPoolSize);
+        sender.setQueueCapacity(sendQueueCapacity);
+        sender.setThreadNamePrefix("sse-send-");
+        sender.initialize();
+
+        Gauge.builder("bus.sse.connections", connections, AtomicInteger::get)
+            .description("Open live feed event streams")
+            .register(meterRegistry);
+        this.replayed = Counter.builder("bus.sse.resumes").tag("result", "replayed").register(meterRegistry);
+        this.snapshots = Counter.builder("bus.sse.resumes").tag("result", "snapshot").register(meterRegistry);
+        this.lagging = Counter.builder("bus.sse.disconnected")
+            .tag("reason", "backlog")
+            .description("Live feed streams closed for falling behind")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    /**
+     * 스트림 연결 (routeId 가 없으면 전체 운행 버스). 첫 이벤트는 전송 풀에서 보낸다.
+     */
+    public SseEmitter connect(Long routeId, String lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new IllegalStateException("Too many live feed streams");
+        }
+        String destination = routeId != null
+            ? FleetBroadcaster.routeDestination(routeId) : FleetBroadcaster.ALL_DESTINATION;
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Viewer viewer = new Viewer(emitter);
+        Stream stream;
+        synchronized (streams) {
+            stream = streams.get(destination);
+            if (stream == null) {
+                fleetBroadcaster.open(destination);
+                stream = new Stream(destination);
+                streams.put(destination, stream);
+            }
+            stream.viewers.add(viewer);
+        }
+        Stream joined = stream;
+        emitter.onCompletion(() -> leave(joined, viewer));
+        emitter.onTimeout(() -> leave(joined, viewer));
+        emitter.onError(e -> leave(joined, viewer));
+
+        boolean queued;
+        synchronized (joined) {
+            queued = resume(joined, viewer, lastEventId);
+        }
+        if (queued) {
+            schedule(joined, viewer);
+        } else {
+            drop(joined, viewer);
+        }
+        return emitter;
+    }
+
+    /**
+     * 샤드 델타 전송 (FleetFeedPublisher 가 직렬화한 바이트를 공유, 소켓 쓰기는 전송 풀에서)
+     */
+    public void publish(String destination, FleetUpdate update, byte[] payload) {
+        Stream stream;
+        synchronized (streams) {
+            stream = streams.get(destination);
+        }
+        if (stream == null) {
+            return;
+        }
+        List<Viewer> queued = new ArrayList<>();
+        List<Viewer> behind = new ArrayList<>();
+        synchronized (stream) {
+            Frame frame = new Frame(update.getBaseVersion(), update.getVersion(), payload);
+            stream.recent.addLast(frame);
+            while (stream.recent.size() > replayFrames) {
+                stream.recent.removeFirst();
+            }
+            for (Viewer viewer : stream.viewers) {
+                if (viewer.version < 0 || viewer.version >= frame.version) {
+                    continue;  // 아직 연결 중이거나 스냅샷에 이미 포함
+                }
+                boolean ok = viewer.version != frame.baseVersion
+                    ? resume(stream, viewer, null)
+                    : enqueue(stream, viewer, frame.version, frame.payload);
+                (ok ? queued : behind).add(viewer);
+            }
+        }
+        for (Viewer viewer : queued) {
+            schedule(stream, viewer);
+        }
+        for (Viewer viewer : behind) {
+            lagging.increment();
+            drop(stream, viewer);
+        }
+    }
+
+    /**
+     * 프록시와 끊긴 연결 정리를 위한 주석 이벤트 (보낼 이벤트가 없는 시청자만)
+     */
+    @Scheduled(fixedDelayString = "${bus.monitoring.sse.heartbeat-interval:15000}")
+    public void heartbeat() {
+        List<Stream> open;
+        synchronized (streams) {
+            open = new ArrayList<>(streams.values());
+        }
+        for (Stream stream : open) {
+            for (Viewer viewer : stream.viewers) {
+                if (viewer.offerIfIdle(SseEmitter.event().comment(""))) {
+                    schedule(stream, viewer);
+                }
+            }
+        }
+    }
+
+    // Last-Event-ID 이후 놓친 델타, 불가능하면 스냅샷을 대기열에 넣는다 (실패하면 false, 스트림 잠금 안에서 호출)
+    private boolean resume(Stream stream, Viewer viewer, String lastEventId) {
+        long lastVersion = versionOf(stream, lastEventId);
+        if (lastVersion >= 0 && !stream.recent.isEmpty() && stream.recent.peekFirst().baseVersion <= lastVersion
+                && lastVersion <= stream.recent.peekLast().version) {
+            viewer.version = lastVersion;
+            for (Frame frame : stream.recent) {
+                if (frame.version > viewer.version && !enqueue(stream, viewer, frame.version, frame.payload)) {
+                    return false;
+                }
+            }
+            replayed.increment();
+            return true;
+        }
+        try {
+            FleetUpdate snapshot = fleetBroadcaster.snapshot(stream.destination);
+            if (stream.snapshot == null || stream.snapshotVersion != snapshot.getVersion()) {
+                stream.snapshot = objectMapper.writeValueAsBytes(snapshot);
+                stream.snapshotVersion = snapshot.getVersion();
+            }
+            snapshots.increment();
+            return enqueue(stream, viewer, stream.snapshotVersion, stream.snapshot);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to encode live feed snapshot for {}: {}", stream.destination, e.getMessage());
+            return false;
+        }
+    }
+
+    // 전송 대기열에 추가 (대기 이벤트가 한도를 넘으면 false)
+    private boolean enqueue(Stream stream, Viewer viewer, long version, byte[] payload) {
+        if (!viewer.offer(SseEmitter.event()
+                .id(stream.generation + ":" + version)
+                .data(payload, MediaType.APPLICATION_JSON), maxPendingEvents)) {
+            viewer.version = Long.MAX_VALUE;  // 끊을 때까지 더 넣지 않는다
+            return false;
+        }
+        viewer.version = version;
+        return true;
+    }
+
+    // 대기 이벤트 전송 작업 시작 (시청자마다 작업은 하나만 돈다)
+    private void schedule(Stream stream, Viewer viewer) {
+        if (!viewer.startSending()) {
+            return;
+        }
+        try {
+            sender.execute(() -> send(stream, viewer));
+        } catch (TaskRejectedException e) {
+            log.warn("Live feed send pool is full, closing stream for {}", stream.destination);
+            lagging.increment();
+            drop(stream, viewer);
+        }
+    }
+
+    // 전송 풀에서 대기 이벤트를 순서대로 쓴다
+    private void send(Stream stream, Viewer viewer) {
+        SseEmitter.SseEventBuilder event;
+        while ((event = viewer.next()) != null) {
+            try {
+                viewer.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                drop(stream, viewer);
+                return;
+            }
+        }
+    }
+
+    // 끊긴 연결이나 느린 연결 정리
+    private void drop(Stream stream, Viewer viewer) {
+        viewer.version = Long.MAX_VALUE;
+        viewer.close();
+        leave(stream, viewer);
+        try {
+            viewer.emitter.complete();
+        } catch (IllegalStateException e) {
+            log.debug("Live feed stream already closed: {}", e.getMessage());
+        }
+    }
+
+    private void leave(Stream stream, Viewer viewer) {
+        synchronized (streams) {
+            if (!stream.viewers.remove(viewer)) {
+                return;
+            }
+            connections.decrementAndGet();
+            if (stream.viewers.isEmpty() && streams.get(stream.destination) == stream) {
+                streams.remove(stream.destination);
+                fleetBroadcaster.close(stream.destination);
+            }
+        }
+    }
+
+    // "{세대}:{버전}" 에서 같은 세대의 버전 (아니면 -1)
+    private static long versionOf(Stream stream, String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int separator = lastEventId.indexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(String.valueOf(stream.generation))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Stream {
+
+        final String destination;
+        final long generation = System.currentTimeMillis();
+        final Set<Viewer> viewers = ConcurrentHashMap.newKeySet();
+        final Deque<Frame> recent = new ArrayDeque<>();  // 최근 델타 (재연결용)
+        byte[] snapshot;
+        long snapshotVersion;
+
+        Stream(String destination) {
+            this.destination = destination;
+        }
+    }
+
+    private static final class Viewer {
+
+        final SseEmitter emitter;
+        volatile long version = -1;  // 마지막으로 대기열에 넣은 버전 (-1: 아직 아무것도 넣지 않음)
+        private final Deque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean sending;  // 전송 작업이 돌고 있는지
+        private boolean closed;
+
+        Viewer(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized boolean offer(SseEmitter.SseEventBuilder event, int limit) {
+            if (closed || pending.size() >= limit) {
+                return false;
+            }
+            pending.addLast(event);
+            return true;
+        }
+
+        // 보낼 이벤트도 도는 전송 작업도 없을 때만 추가
+        synchronized boolean offerIfIdle(SseEmitter.SseEventBuilder event) {
+            if (closed || sending || !pending.isEmpty()) {
+                return false;
+            }
+            pending.addLast(event);
+            return true;
+        }
+
+        synchronized boolean startSending() {
+            if (closed || sending || pending.isEmpty()) {
+                return false;
+            }
+            sending = true;
+            return true;
+        }
+
+        // 다음 이벤트 (없으면 전송 작업을 끝내고 null)
+        synchronized SseEmitter.SseEventBuilder next() {
+            SseEmitter.SseEventBuilder event = closed ? null : pending.pollFirst();
+            if (event == null) {
+                sending = false;
+            }
+            return event;
+        }
+
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+    }
+
+    private static final class Frame {
+
+        final long baseVersion;
+        final long version;
+        final byte[] payload;
+
+        Frame(long baseVersion, long version, byte[] payload) {
+            this.baseVersion = baseVersion;
+            this.version = version;
+            this.payload = payload;
+        }
+    }
+}
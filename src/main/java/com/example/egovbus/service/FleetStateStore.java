@@ -0,0 +1,380 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.Bus;
+import com.example.egovbus.model.BusStatus;
+import com.example.egovbus.model.LiveBusState;
+import com.example.egovbus.model.StopSnap;
+import com.example.egovbus.repository.BusRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Fleet State Store
+ * 버스 실시간 상태(위치, 속도, 탑승객, 상태)의 메모리 저장소.
+ *
+ * 위치 갱신은 메모리에만 반영되고, buses 테이블은
+ * bus.monitoring.live-state-flush-interval 주기로 변경분만 일괄 기록된다.
+ * 위치가 바뀌면 같은 갱신 안에서 FleetSpatialIndex 도 함께 갱신한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FleetStateStore {
+
+    private final BusRepository busRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final FleetSpatialIndex spatialIndex;
+
+    // 버스 기본 정보 (번호, 노선, 운전자 등) - DB에서 읽은 detached 엔티티
+    private final Map<Long, Bus> profiles = new ConcurrentHashMap<>();
+
+    // 버스 실시간 상태
+    private final Map<Long, LiveBusState> states = new ConcurrentHashMap<>();
+
+    // DB에 아직 기록되지 않은 버스 ID
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // 버스 목록 버전 (ETag, ?since= 조회)
+    private final ChangeLog changes = new ChangeLog();
+
+    /**
+     * 애플리케이션 기동 후 전체 버스 로드
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadAll() {
+        busRepository.findAll().forEach(this::register);
+        log.info("Fleet state store loaded {} buses", states.size());
+    }
+
+    /**
+     * 버스 등록/기본 정보 갱신.
+     * 이미 실시간 상태가 있으면 위치, 속도, 탑승객 수, 상태는 메모리 값을 유지한다.
+     */
+    public LiveBusState register(Bus bus) {
+        profiles.put(bus.getId(), bus);
+        changes.touchAfterCommit(bus.getId());
+        return states.compute(bus.getId(), (id, current) -> {
+            if (current == null) {
+                LiveBusState created = LiveBusState.builder()
+                    .busId(bus.getId())
+                    .busNumber(bus.getBusNumber())
+                    .routeId(bus.getRoute() != null ? bus.getRoute().getId() : null)
+                    .capacity(bus.getCapacity())
+                    .latitude(bus.getCurrentLatitude())
+                    .longitude(bus.getCurrentLongitude())
+                    .speed(bus.getSpeed())
+                    .passengers(bus.getCurrentPassengers())
+                    .status(bus.getStatus())
+                    .lastUpdated(bus.getLastUpdated())
+                    .build();
+                spatialIndex.update(id, created.getLatitude(), created.getLongitude());
+                return created;
+            }
+            return current.toBuilder()
+                .busNumber(bus.getBusNumber())
+                .routeId(bus.getRoute() != null ? bus.getRoute().getId() : null)
+                .capacity(bus.getCapacity())
+                .build();
+        });
+    }
+
+    /**
+     * 버스 제거
+     */
+    public void evict(Long busId) {
+        states.computeIfPresent(busId, (id, state) -> {
+            spatialIndex.remove(id);
+            return null;
+        });
+        profiles.remove(busId);
+        dirty.remove(busId);
+        changes.removeAfterCommit(busId);
+    }
+
+    /**
+     * 버스 제거 (트랜잭션 안이면 커밋 후, 롤백되면 유지). onEvicted 는 제거 직후 함께 실행한다.
+     */
+    public void evictAfterCommit(Long busId, Runnable onEvicted) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(busId);
+            onEvicted.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(busId);
+                onEvicted.run();
+            }
+        });
+    }
+
+    /**
+     * 버스 실시간 상태 조회 (메모리에 없으면 DB에서 로드)
+     */
+    public Optional<LiveBusState> get(Long busId) {
+        LiveBusState state = states.get(busId);
+        if (state != null) {
+            return Optional.of(state);
+        }
+        return busRepository.findById(busId).map(this::register);
+    }
+
+    /**
+     * 버스 목록 버전 (버스 등록, 정보 변경, 실시간 상태 변경, 삭제마다 증가)
+     */
+    public long version() {
+        return changes.version();
+    }
+
+    /**
+     * 버전 이후 바뀐/삭제된 버스 ID (이 프로세스의 버전이 아니면 null)
+     */
+    public ChangeLog.Changes changesSince(long since) {
+        return changes.since(since);
+    }
+
+    /**
+     * 전체 버스 실시간 상태
+     */
+    public Collection<LiveBusState> states() {
+        return states.values();
+    }
+
+    /**
+     * 영역 안의 버스 실시간 상태 (격자 인덱스 조회)
+     */
+    public List<LiveBusState> findInArea(double minLat, double maxLat, double minLon, double maxLon) {
+        List<LiveBusState> result = new ArrayList<>();
+        for (Long busId : spatialIndex.findInArea(minLat, maxLat, minLon, maxLon)) {
+            LiveBusState state = states.get(busId);
+            if (state != null) {
+                result.add(state);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 조건에 맞는 가장 가까운 k대 (격자 인덱스 최근접 검색, 가까운 순)
+     */
+    public List<FleetSpatialIndex.Neighbor> findNearest(double latitude, double longitude, int k,
+                                                        Predicate<LiveBusState> filter) {
+        return spatialIndex.findNearest(latitude, longitude, k, busId -> {
+            LiveBusState state = states.get(busId);
+            return state != null && filter.test(state);
+        });
+    }
+
+    /**
+     * 위치 갱신 (speed, stopSnap 이 null 이면 기존 값 유지)
+     */
+    public LiveBusState applyLocation(Long busId, Double latitude, Double longitude, Double speed,
+                                      LocalDateTime timestamp, StopSnap stopSnap, Double routeDistance) {
+        return update(busId, state -> state.toBuilder()
+            .latitude(latitude)
+            .longitude(longitude)
+            .speed(speed != null ? speed : state.getSpeed())
+            .lastUpdated(timestamp)
+            .stopSnap(stopSnap != null ? stopSnap : state.getStopSnap())
+            .routeDistance(routeDistance)
+            .build());
+    }
+
+    /**
+     * 위치 갱신 (현재 상태보다 최신 위치일 때만)
+     */
+    public LiveBusState applyLocationIfNewer(Long busId, Double latitude, Double longitude, Double speed,
+                                             LocalDateTime timestamp, StopSnap stopSnap, Double routeDistance) {
+        return update(busId, state -> {
+            if (state.getLastUpdated() != null && !timestamp.isAfter(state.getLastUpdated())) {
+                return state;
+            }
+            return state.toBuilder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .speed(speed != null ? speed : state.getSpeed())
+                .lastUpdated(timestamp)
+                .stopSnap(stopSnap != null ? stopSnap : state.getStopSnap())
+                .routeDistance(routeDistance)
+                .build();
+        });
+    }
+
+    /**
+     * 상태 변경
+     */
+    public LiveBusState updateStatus(Long busId, BusStatus status) {
+        return update(busId, state -> state.toBuilder().status(status).build());
+    }
+
+    /**
+     * 탑승객 수 변경 (정원 확인과 변경을 한 번에 처리)
+     */
+    public LiveBusState updatePassengers(Long busId, Integer passengers) {
+        return update(busId, state -> {
+            if (state.getCapacity() != null && passengers > state.getCapacity()) {
+                throw new RuntimeException("Passenger count exceeds bus capacity");
+            }
+            return state.toBuilder().passengers(passengers).build();
+        });
+    }
+
+    /**
+     * 탑승객 수 증감
+     */
+    public LiveBusState adjustPassengers(Long busId, int delta) {
+        return update(busId, state -> {
+            int current = state.getPassengers() != null ? state.getPassengers() : 0;
+            return state.toBuilder().passengers(Math.max(0, current + delta)).build();
+        });
+    }
+
+    // 변경이 없으면 버전과 DB 기록 대상에 반영하지 않는다
+    private LiveBusState update(Long busId, UnaryOperator<LiveBusState> mutation) {
+        get(busId).orElseThrow(() -> new RuntimeException("Bus not found with id: " + busId));
+
+        boolean[] changed = {false};
+        LiveBusState updated = states.computeIfPresent(busId, (id, state) -> {
+            LiveBusState next = mutation.apply(state);
+            if (next.equals(state)) {
+                return state;
+            }
+            if (!Objects.equals(next.getLatitude(), state.getLatitude())
+                    || !Objects.equals(next.getLongitude(), state.getLongitude())) {
+                spatialIndex.update(id, next.getLatitude(), next.getLongitude());
+            }
+            changes.touch(id);
+            changed[0] = true;
+            return next;
+        });
+        if (updated == null) {
+            throw new RuntimeException("Bus not found with id: " + busId);
+        }
+        if (changed[0]) {
+            dirty.add(busId);
+        }
+        return updated;
+    }
+
+    /**
+     * 실시간 상태를 반영한 Bus 객체 생성 (DB 엔티티와 분리된 복사본)
+     */
+    public Bus toBus(LiveBusState state) {
+        Bus profile = profiles.get(state.getBusId());
+
+        Bus bus = new Bus();
+        bus.setId(state.getBusId());
+        bus.setBusNumber(state.getBusNumber());
+        bus.setCapacity(state.getCapacity());
+        if (profile != null) {
+            bus.setLicensePlate(profile.getLicensePlate());
+            bus.setDriverName(profile.getDriverName());
+            bus.setDriverPhone(profile.getDriverPhone());
+            bus.setDriver(profile.getDriver());
+            bus.setRoute(profile.getRoute());
+            bus.setNextStop(profile.getNextStop());
+            bus.setEstimatedArrival(profile.getEstimatedArrival());
+        }
+        overlay(bus, state);
+        return bus;
+    }
+
+    /**
+     * 조건에 맞는 버스를 ID 순으로 Bus 객체로 변환
+     */
+    public List<Bus> toBuses(Collection<LiveBusState> selected) {
+        return selected.stream()
+            .sorted(Comparator.comparing(LiveBusState::getBusId))
+            .map(this::toBus)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * DB에서 읽은 Bus에 메모리의 실시간 상태를 덮어쓴다 (읽기 전용 트랜잭션에서 사용)
+     */
+    public Bus overlay(Bus bus) {
+        LiveBusState state = states.get(bus.getId());
+        if (state != null) {
+            overlay(bus, state);
+        }
+        return bus;
+    }
+
+    private void overlay(Bus bus, LiveBusState state) {
+        bus.setCurrentLatitude(state.getLatitude());
+        bus.setCurrentLongitude(state.getLongitude());
+        bus.setSpeed(state.getSpeed());
+        bus.setCurrentPassengers(state.getPassengers());
+        bus.setStatus(state.getStatus());
+        bus.setLastUpdated(state.getLastUpdated());
+        if (state.getStopSnap() != null && state.getStopSnap().getNextStopName() != null) {
+            bus.setNextStop(state.getStopSnap().getNextStopName());
+        }
+        if (state.getStopSnap() != null && state.getStopSnap().getNextStopArrivalMillis() != null) {
+            long remaining = state.getStopSnap().getNextStopArrivalMillis() - System.currentTimeMillis();
+            bus.setEstimatedArrival((int) Math.max(0, (remaining + 59_999) / 60_000));
+        }
+    }
+
+    /**
+     * 변경된 버스 상태를 DB에 일괄 기록 (write-behind)
+     */
+    @Scheduled(fixedDelayString = "${bus.monitoring.live-state-flush-interval:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<LiveBusState> pending = new ArrayList<>();
+        for (Long busId : dirty) {
+            // 기록 전에 먼저 제거해야 그 사이의 갱신이 다음 주기에 다시 기록된다
+            dirty.remove(busId);
+            LiveBusState state = states.get(busId);
+            if (state != null) {
+                pending.add(state);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> pending.forEach(state ->
+                busRepository.updateLiveState(state.getBusId(),
+                    state.getLatitude(), state.getLongitude(), state.getSpeed(),
+                    state.getPassengers(), state.getStatus(), state.getLastUpdated(),
+                    state.getStopSnap() != null ? state.getStopSnap().getNextStopName() : null)));
+            log.debug("Flushed live state for {} buses", pending.size());
+        } catch (RuntimeException e) {
+            pending.forEach(state -> dirty.add(state.getBusId()));
+            log.error("Failed to flush live bus state: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
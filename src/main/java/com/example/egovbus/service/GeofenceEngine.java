@@ -0,0 +1,234 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.BusStop;
+import com.example.egovbus.model.GeofenceEvent;
+import com.example.egovbus.model.Notification;
+import com.example.egovbus.model.NotificationType;
+import com.example.egovbus.repository.BusStopRepository;
+import com.example.egovbus.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Geofence Engine
+ * 도착 알림 대기 건을 메모리에 두고 위치 수신마다 지오펜스 진입/이탈을 판정한다.
+ *
+ * 대기 건은 버스별, 정류장별로 색인하며 위치 하나는 그 버스의 다가오는 정류장 (EtaEngine 예측의
+ * 하류 정류장) 에 걸린 지오펜스만 검사한다. 정류장까지 직선 거리가 반경 안이거나 예상 도착이
+ * lead-minutes 이내면 진입, 반경 * EXIT_FACTOR 밖으로 벗어나면 이탈이다.
+ * 사건은 ApplicationEvent (GeofenceEvent) 로 발행되며, 위치 수신 경로에서는 DB를 읽지 않는다.
+ */
+@Component
+@Slf4j
+public class GeofenceEngine {
+
+    private static final double METERS_PER_DEGREE = 6_371_000 * Math.PI / 180;
+
+    // 경계에서 진입/이탈이 반복되지 않도록 이탈은 반경보다 조금 더 멀어졌을 때로 본다
+    private static final double EXIT_FACTOR = 1.1;
+
+    private final NotificationRepository notificationRepository;
+    private final BusStopRepository busStopRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EtaEngine etaEngine;
+    private final double radiusMeters;
+    private final int leadMinutes;
+
+    // 버스 ID -> 지오펜스
+    private final Map<Long, BusFences> byBus = new ConcurrentHashMap<>();
+
+    // 정류장 ID -> 알림 ID
+    private final Map<Long, Set<Long>> byStop = new ConcurrentHashMap<>();
+
+    public GeofenceEngine(NotificationRepository notificationRepository,
+                          BusStopRepository busStopRepository,
+                          TransactionTemplate transactionTemplate,
+                          ApplicationEventPublisher eventPublisher,
+                          EtaEngine etaEngine,
+                          @Value("${bus.monitoring.geofence.radius-meters:2000}") double radiusMeters,
+                          @Value("${bus.monitoring.geofence.lead-minutes:5}") int leadMinutes) {
+        this.notificationRepository = notificationRepository;
+        this.busStopRepository = busStopRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.etaEngine = etaEngine;
+        this.radiusMeters = radiusMeters;
+        this.leadMinutes = leadMinutes;
+    }
+
+    /**
+     * 미발송 도착 알림 전체 로드
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        Integer loaded = transactionTemplate.execute(status -> {
+            Map<String, BusStop> stops = busStopRepository.findAll().stream()
+                .collect(Collectors.toMap(BusStop::getName, Function.identity()));
+            int count = 0;
+            for (Notification notification : notificationRepository.findPendingArrivalNotifications()) {
+                BusStop stop = stops.get(notification.getStopName());
+                if (stop != null && watch(notification, stop)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Geofence engine loaded {} pending arrival watches", loaded);
+    }
+
+    /**
+     * 도착 알림 감시 등록 (버스가 없거나 이미 발송된 알림이면 false)
+     */
+    public boolean watch(Notification notification, BusStop stop) {
+        if (notification.getType() != NotificationType.BUS_ARRIVAL || notification.getBus() == null
+                || Boolean.TRUE.equals(notification.getIsSent())) {
+            return false;
+        }
+        Watch watch = new Watch(notification.getId(), notification.getBus().getId(),
+            stop.getId(), stop.getName(), stop.getLatitude(), stop.getLongitude());
+        // 빈 지오펜스 제거와 겹치지 않도록 버스 단위로 원자적으로 추가한다
+        byBus.compute(watch.busId, (id, fences) -> {
+            BusFences target = fences != null ? fences : new BusFences();
+            target.add(watch);
+            return target;
+        });
+        byStop.computeIfAbsent(watch.stopId, id -> ConcurrentHashMap.newKeySet()).add(watch.notificationId);
+        return true;
+    }
+
+    /**
+     * 도착 알림 감시 해제
+     */
+    public void unwatch(Long busId, Long notificationId) {
+        Watch[] removed = new Watch[1];
+        byBus.computeIfPresent(busId, (id, fences) -> {
+            removed[0] = fences.remove(notificationId);
+            return fences.isEmpty() ? null : fences;
+        });
+        if (removed[0] != null) {
+            byStop.computeIfPresent(removed[0].stopId, (id, notificationIds) -> {
+                notificationIds.remove(notificationId);
+                return notificationIds.isEmpty() ? null : notificationIds;
+            });
+        }
+    }
+
+    /**
+     * 정류장에 걸린 대기 중인 알림 ID
+     */
+    public Set<Long> watchesAt(Long stopId) {
+        Set<Long> notificationIds = byStop.get(stopId);
+        return notificationIds != null ? Collections.unmodifiableSet(notificationIds) : Collections.emptySet();
+    }
+
+    /**
+     * 위치 수신 시 판정. 감시 중인 알림이 없는 버스는 조회 한 번으로 끝난다.
+     */
+    public void evaluate(Long busId, double latitude, double longitude, long timestampMillis) {
+        BusFences fences = byBus.get(busId);
+        if (fences == null) {
+            return;
+        }
+        List<GeofenceEvent> events = fences.evaluate(busId, latitude, longitude, timestampMillis,
+            etaEngine.upcomingMinutes(busId), this);
+        for (GeofenceEvent event : events) {
+            if (event.getType() == GeofenceEvent.Type.EXIT) {
+                unwatch(busId, event.getNotificationId());
+            }
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private GeofenceEvent test(Watch watch, Long busId, double latitude, double longitude, long timestampMillis,
+                               Map<Long, Integer> upcoming) {
+        Integer minutes = upcoming != null ? upcoming.get(watch.stopId) : null;
+        boolean ahead = upcoming == null || upcoming.containsKey(watch.stopId);
+        double dy = (latitude - watch.latitude) * METERS_PER_DEGREE;
+        double dx = (longitude - watch.longitude) * METERS_PER_DEGREE * Math.cos(Math.toRadians(watch.latitude));
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        if (!watch.inside) {
+            if (ahead && (distance <= radiusMeters || (minutes != null && minutes <= leadMinutes))) {
+                watch.inside = true;
+                return new GeofenceEvent(GeofenceEvent.Type.ENTER, watch.notificationId, busId,
+                    watch.stopId, watch.stopName, distance, minutes, timestampMillis);
+            }
+        } else if (!ahead || distance > radiusMeters * EXIT_FACTOR) {
+            watch.inside = false;
+            return new GeofenceEvent(GeofenceEvent.Type.EXIT, watch.notificationId, busId,
+                watch.stopId, watch.stopName, distance, minutes, timestampMillis);
+        }
+        return null;
+    }
+
+    /**
+     * 버스 한 대의 지오펜스 (같은 버스의 위치 판정은 직렬화한다)
+     */
+    private static final class BusFences {
+
+        private final Map<Long, Watch> watches = new HashMap<>();
+
+        synchronized void add(Watch watch) {
+            watches.put(watch.notificationId, watch);
+        }
+
+        synchronized Watch remove(Long notificationId) {
+            return watches.remove(notificationId);
+        }
+
+        synchronized boolean isEmpty() {
+            return watches.isEmpty();
+        }
+
+        synchronized List<GeofenceEvent> evaluate(Long busId, double latitude, double longitude, long timestampMillis,
+                                                  Map<Long, Integer> upcoming, GeofenceEngine engine) {
+            List<GeofenceEvent> events = new ArrayList<>();
+            for (Watch watch : watches.values()) {
+                // 다가오는 정류장이 아니면서 밖에 있는 지오펜스는 검사하지 않는다
+                if (upcoming != null && !watch.inside && !upcoming.containsKey(watch.stopId)) {
+                    continue;
+                }
+                GeofenceEvent event = engine.test(watch, busId, latitude, longitude, timestampMillis, upcoming);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+    }
+
+    private static final class Watch {
+
+        final Long notificationId;
+        final Long busId;
+        final Long stopId;
+        final String stopName;
+        final double latitude;
+        final double longitude;
+        boolean inside;
+
+        Watch(Long notificationId, Long busId, Long stopId, String stopName, double latitude, double longitude) {
+            this.notificationId = notificationId;
+            this.busId = busId;
+            this.stopId = stopId;
+            this.stopName = stopName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.egovbus.service;
+
+/**
+ * Geohash
+ * 위경도를 base32 geohash 로 변환 (지도 타일 단위 실시간 토픽의 키).
+ * 길이 5 는 약 4.9 x 4.9 km, 6 은 약 1.2 x 0.6 km 타일이다.
+ */
+public final class Geohash {
+
+    private static final String ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final char[] BASE32 = ALPHABET.toCharArray();
+
+    public static final int MAX_PRECISION = 12;
+
+    private Geohash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (longitude >= mid) {
+                        index = (index << 1) | 1;
+                        minLon = mid;
+                    } else {
+                        index <<= 1;
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index = (index << 1) | 1;
+                        minLat = mid;
+                    } else {
+                        index <<= 1;
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * geohash 문자만으로 이루어진 1~MAX_PRECISION 자 문자열인지
+     */
+    public static boolean isValid(String hash) {
+        if (hash == null || hash.isEmpty() || hash.length() > MAX_PRECISION) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            if (ALPHABET.indexOf(hash.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LiveBusState;
+import com.example.egovbus.model.LocationFix;
+import com.example.egovbus.repository.LocationHistoryStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Location History Service
+ * 위치 히스토리 조회 및 일자 파티션 관리 (보존 기간: bus.monitoring.location-history-days)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationHistoryService {
+
+    private final LocationHistoryStore historyStore;
+    private final FleetStateStore fleetStateStore;
+
+    @Value("${bus.monitoring.location-history-days:7}")
+    private int historyDays;
+
+    @Value("${bus.monitoring.history.replay-minutes:30}")
+    private int replayMinutes;
+
+    @Value("${bus.monitoring.history.max-points:500}")
+    private int maxPoints;
+
+    @Value("${bus.monitoring.history.export-page-size:1000}")
+    private int exportPageSize;
+
+    /**
+     * 버스별 기간 조회 (최신순)
+     */
+    public List<LocationFix> getHistory(Long busId, LocalDateTime startTime, LocalDateTime endTime) {
+        return historyStore.findByBusAndTimeRange(busId, startTime, endTime);
+    }
+
+    /**
+     * 버스의 최근 궤적 (최신순)
+     */
+    public List<LocationFix> getRecentTrail(Long busId, int minutes) {
+        return historyStore.findRecent(busId, System.currentTimeMillis() - minutes * 60_000L);
+    }
+
+    /**
+     * 전체 버스의 최근 궤적.
+     * 시각만으로 전체를 훑지 않고, 운행 중인 버스마다 (bus_id, timestamp) 인덱스 구간을 조회한다.
+     */
+    public Map<Long, List<LocationFix>> getRecentTrails(int minutes) {
+        long since = System.currentTimeMillis() - minutes * 60_000L;
+        Map<Long, List<LocationFix>> trails = new LinkedHashMap<>();
+        for (Long busId : fleetStateStore.states().stream()
+                .map(LiveBusState::getBusId)
+                .sorted()
+                .collect(Collectors.toList())) {
+            List<LocationFix> trail = historyStore.findRecent(busId, since);
+            if (!trail.isEmpty()) {
+                trails.put(busId, trail);
+            }
+        }
+        return trails;
+    }
+
+    /**
+     * 단순화된 궤적 조회 (최신순).
+     * zoom 이 주어지면 해당 줌의 한 픽셀을 허용 오차로 쓰고, 점 수는 bus.monitoring.history.max-points 를 넘지 않는다.
+     */
+    public List<LocationFix> getSimplifiedHistory(Long busId, LocalDateTime startTime, LocalDateTime endTime,
+                                                  Double toleranceMeters, Integer zoom, Integer requestedMaxPoints) {
+        List<LocationFix> history = historyStore.findByBusAndTimeRange(busId, startTime, endTime);
+        if (history.isEmpty()) {
+            return history;
+        }
+
+        double tolerance = toleranceMeters != null ? Math.max(0, toleranceMeters) : 0;
+        if (zoom != null) {
+            tolerance = Math.max(tolerance, TrajectorySimplifier.toleranceForZoom(zoom, history.get(0).getLatitude()));
+        }
+        int limit = requestedMaxPoints != null ? Math.min(requestedMaxPoints, maxPoints) : maxPoints;
+        return TrajectorySimplifier.simplify(history, tolerance, limit);
+    }
+
+    /**
+     * 히스토리 내보내기. 커서 이후 위치를 (bus_id, timestamp, id) 순으로 페이지 단위로 읽어 전달하므로
+     * 기간이 길어도 메모리 사용량은 페이지 크기로 제한된다. limit 이 null 이면 끝까지 읽는다.
+     */
+    public long export(HistoryCursor after, LocalDateTime startTime, LocalDateTime endTime, Long busId, Long limit,
+                       BiConsumer<HistoryCursor, LocationFix> consumer) {
+        HistoryCursor[] cursor = {after};
+        long exported = 0;
+        while (limit == null || exported < limit) {
+            int pageSize = limit == null ? exportPageSize : (int) Math.min(exportPageSize, limit - exported);
+            int read = historyStore.scan(cursor[0], startTime, endTime, busId, pageSize, (position, fix) -> {
+                cursor[0] = position;
+                consumer.accept(position, fix);
+            });
+            exported += read;
+            if (read < pageSize) {
+                break;
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * 기동 시 최근 히스토리를 다시 읽어, buses 테이블에 기록되기 전에 중단된 최신 위치를 복원한다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayRecentTrail() {
+        long since = System.currentTimeMillis() - replayMinutes * 60_000L;
+        Map<Long, LocationFix> newestByBus = new HashMap<>();
+        historyStore.replay(since, fix -> newestByBus.merge(fix.getBusId(), fix,
+            (current, candidate) -> candidate.getTimestamp() > current.getTimestamp() ? candidate : current));
+
+        int restored = 0;
+        for (LocationFix fix : newestByBus.values()) {
+            if (fleetStateStore.get(fix.getBusId()).isEmpty()) {
+                continue;
+            }
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(fix.getTimestamp()), ZoneId.systemDefault());
+            fleetStateStore.applyLocationIfNewer(fix.getBusId(), fix.getLatitude(), fix.getLongitude(),
+                fix.getSpeed(), timestamp, null, null);
+            restored++;
+        }
+        if (restored > 0) {
+            log.info("Replayed location history: restored last position of {} buses", restored);
+        }
+    }
+
+    /**
+     * 오늘/내일 파티션을 미리 생성해 수신 경로에서 DDL이 실행되지 않도록 한다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bus.monitoring.history.partition-cron:0 0 * * * *}")
+    public void prepareUpcomingPartitions() {
+        LocalDate today = LocalDate.now();
+        historyStore.prepare(today);
+        historyStore.prepare(today.plusDays(1));
+    }
+
+    /**
+     * 보존 기간이 지난 파티션 삭제
+     */
+    @Scheduled(cron = "${bus.monitoring.history.retention-cron:0 10 0 * * *}")
+    public void enforceRetention() {
+        LocalDate cutoff = LocalDate.now().minusDays(historyDays);
+        int dropped = historyStore.purgeBefore(cutoff);
+        if (dropped > 0) {
+            log.info("Location history retention: removed {} units older than {}", dropped, cutoff);
+        }
+    }
+}
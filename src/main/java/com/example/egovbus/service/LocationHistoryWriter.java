@@ -0,0 +1,166 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.LocationFix;
+import com.example.egovbus.repository.LocationHistoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Location History Writer
+ * 위치 히스토리를 큐에 모았다가 건수 또는 시간 기준으로 히스토리 저장소에 일괄 저장한다.
+ *
+ * 큐가 가득 차면 새 위치는 버려지고(bus.history.fixes.dropped) 운전자 요청은 지연되지 않는다.
+ */
+@Component
+@Slf4j
+public class LocationHistoryWriter {
+
+    private final LocationHistoryStore historyStore;
+    private final BlockingQueue<LocationFix> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public LocationHistoryWriter(LocationHistoryStore historyStore,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bus.monitoring.history.queue-capacity:50000}") int queueCapacity,
+                                 @Value("${bus.monitoring.history.batch-size:500}") int batchSize,
+                                 @Value("${bus.monitoring.history.flush-interval:1000}") long flushIntervalMillis,
+                                 @Value("${bus.monitoring.history.shutdown-timeout:10000}") long shutdownTimeoutMillis) {
+        this.historyStore = historyStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        Gauge.builder("bus.history.queue.depth", queue, BlockingQueue::size)
+            .description("Location fixes waiting to be written")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("bus.history.fixes.written").register(meterRegistry);
+        this.droppedCounter = Counter.builder("bus.history.fixes.dropped")
+            .description("Location fixes rejected because the queue was full")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("bus.history.fixes.failed").register(meterRegistry);
+        this.flushTimer = Timer.builder("bus.history.flush.latency")
+            .description("Time spent writing one batch")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "bus-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 위치 히스토리 저장 요청 (비동기)
+     */
+    public boolean enqueue(LocationFix fix) {
+        if (queue.offer(fix)) {
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<LocationFix> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LocationFix first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 배치 크기를 채우거나 flush 주기가 지날 때까지 모은다
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    LocationFix next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Location history writer error: {}", e.getMessage());
+                batch.clear();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<LocationFix> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> historyStore.append(batch));
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write {} location fixes: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 종료 시 큐에 남은 위치를 모두 저장.
+     * 저장소는 쓰기 스레드 하나만 가정하므로, 작업 스레드가 끝난 뒤에만 종료 스레드에서 남은 큐를 저장한다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(flushIntervalMillis + shutdownTimeoutMillis);
+            if (worker.isAlive()) {
+                log.warn("Location history writer did not stop within {} ms; {} queued fixes were not written",
+                    shutdownTimeoutMillis, queue.size());
+                return;
+            }
+        }
+
+        List<LocationFix> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        log.info("Location history writer stopped");
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.egovbus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map Matcher
+ * 위치를 버스 노선 경로에 증분 투영한다.
+ *
+ * 버스마다 마지막으로 받아들인 선형 위치와 시각을 기억하고, 다음 위치는 그 지점에서
+ * 최고 속도로 갈 수 있는 범위 안의 경로 구간에서만 찾는다 (경로 전체 탐색은 처음과 이탈 시에만).
+ * 직선 거리로도 최고 속도를 넘는 위치는 GPS 튐으로 보고 버리며, 연속으로
+ * bus.monitoring.matching.max-rejections 번 버려지면 그 위치에서 다시 추적을 시작한다.
+ */
+@Component
+public class MapMatcher {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private final RouteShapeIndex routeShapeIndex;
+    private final double maxOffsetMeters;
+    private final double maxSpeedMetersPerSecond;
+    private final double maxBacktrackMeters;
+    private final int maxRejections;
+    private final Counter matched;
+    private final Counter offRoute;
+    private final Counter rejected;
+
+    // 버스 ID -> 마지막으로 받아들인 위치
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+
+    public MapMatcher(RouteShapeIndex routeShapeIndex,
+                      MeterRegistry meterRegistry,
+                      @Value("${bus.monitoring.matching.max-offset-meters:60}") double maxOffsetMeters,
+                      @Value("${bus.monitoring.matching.max-speed-kmh:110}") double maxSpeedKmh,
+                      @Value("${bus.monitoring.matching.max-backtrack-meters:50}") double maxBacktrackMeters,
+                      @Value("${bus.monitoring.matching.max-rejections:3}") int maxRejections) {
+        this.routeShapeIndex = routeShapeIndex;
+        this.maxOffsetMeters = maxOffsetMeters;
+        this.maxSpeedMetersPerSecond = maxSpeedKmh / 3.6;
+        this.maxBacktrackMeters = maxBacktrackMeters;
+        this.maxRejections = maxRejections;
+        this.matched = meterRegistry.counter("bus.matching.fixes", "result", "matched");
+        this.offRoute = meterRegistry.counter("bus.matching.fixes", "result", "off_route");
+        this.rejected = meterRegistry.counter("bus.matching.fixes", "result", "rejected");
+    }
+
+    /**
+     * 위치 대응. 같은 버스의 위치는 시간 순서대로 넣어야 한다 (이전 시각 이전의 위치는 추적 상태를 바꾸지 않는다).
+     */
+    public Match match(Long busId, Long routeId, double latitude, double longitude, long timestampMillis) {
+        RouteGeometry geometry = routeShapeIndex.get(routeId);
+        Match[] result = new Match[1];
+        tracks.compute(busId, (id, track) -> {
+            if (track != null && track.timestampMillis >= timestampMillis && Objects.equals(track.routeId, routeId)) {
+                // 늦게 도착한 위치: 추적 상태는 그대로 두고 대응만 한다
+                result[0] = acquire(geometry, latitude, longitude);
+                return track;
+            }
+            Track current = track != null && Objects.equals(track.routeId, routeId) ? track : null;
+            result[0] = current != null
+                ? follow(current, geometry, latitude, longitude, timestampMillis)
+                : acquire(geometry, latitude, longitude);
+
+            if (result[0].isRejected()) {
+                if (current.rejections + 1 < maxRejections) {
+                    return current.rejected();
+                }
+                // 계속 같은 쪽에서 위치가 오면 실제 이동으로 보고 다시 잡는다
+                result[0] = acquire(geometry, latitude, longitude);
+            }
+            Double distance = result[0].getRouteDistance() != null
+                ? result[0].getRouteDistance() : current != null ? current.distance : null;
+            return new Track(routeId, latitude, longitude, distance, timestampMillis, 0);
+        });
+
+        Match match = result[0];
+        if (match.isRejected()) {
+            rejected.increment();
+        } else if (match.getRouteDistance() != null) {
+            matched.increment();
+        } else if (geometry != null) {
+            offRoute.increment();
+        }
+        return match;
+    }
+
+    /**
+     * 추적 상태 삭제 (버스 삭제, 노선 변경 시)
+     */
+    public void reset(Long busId) {
+        tracks.remove(busId);
+    }
+
+    private Match follow(Track track, RouteGeometry geometry, double latitude, double longitude, long timestampMillis) {
+        double seconds = (timestampMillis - track.timestampMillis) / 1000.0;
+        double reach = maxSpeedMetersPerSecond * seconds + maxOffsetMeters;
+        if (distanceMeters(track.latitude, track.longitude, latitude, longitude) > reach) {
+            return Match.REJECTED;
+        }
+        if (geometry == null) {
+            return Match.unmatched(latitude, longitude);
+        }
+        if (track.distance != null) {
+            RouteGeometry.Projection projection = geometry.project(latitude, longitude,
+                track.distance - maxBacktrackMeters, track.distance + reach);
+            if (projection.getOffsetMeters() <= maxOffsetMeters) {
+                return Match.matched(projection);
+            }
+        }
+        // 진행 범위 밖: 회차/되돌아옴 등은 전체 경로에서 다시 찾는다
+        return acquire(geometry, latitude, longitude);
+    }
+
+    private Match acquire(RouteGeometry geometry, double latitude, double longitude) {
+        if (geometry == null) {
+            return Match.unmatched(latitude, longitude);
+        }
+        RouteGeometry.Projection projection = geometry.project(latitude, longitude);
+        return projection.getOffsetMeters() <= maxOffsetMeters
+            ? Match.matched(projection) : Match.unmatched(latitude, longitude);
+    }
+
+    private static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        return Math.sqrt(dLat * dLat + dLon * dLon) * EARTH_RADIUS_METERS;
+    }
+
+    /**
+     * 대응 결과. 경로에 대응되면 좌표는 경로 위 지점이고 routeDistance 가 있다.
+     */
+    @lombok.Value
+    public static class Match {
+
+        static final Match REJECTED = new Match(true, 0, 0, null, null);
+
+        boolean rejected;  // 불가능한 이동으로 버린 위치
+
+        double latitude;
+
+        double longitude;
+
+        Double routeDistance;  // 선형 위치 (미터), 경로에서 벗어났으면 null
+
+        Double offsetMeters;  // 원래 좌표와 경로 사이 거리
+
+        static Match matched(RouteGeometry.Projection projection) {
+            return new Match(false, projection.getLatitude(), projection.getLongitude(),
+                projection.getDistance(), projection.getOffsetMeters());
+        }
+
+        static Match unmatched(double latitude, double longitude) {
+            return new Match(false, latitude, longitude, null, null);
+        }
+    }
+
+    private static final class Track {
+
+        final Long routeId;
+        final double latitude;
+        final double longitude;
+        final Double distance;
+        final long timestampMillis;
+        final int rejections;
+
+        Track(Long routeId, double latitude, double longitude, Double distance, long timestampMillis, int rejections) {
+            this.routeId = routeId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.distance = distance;
+            this.timestampMillis = timestampMillis;
+            this.rejections = rejections;
+        }
+
+        Track rejected() {
+            return new Track(routeId, latitude, longitude, distance, timestampMillis, rejections + 1);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.egovbus.service;
 
+import com.example.egovbus.config.NotificationConfig;
 import com.example.egovbus.model.*;
+import com.example.egovbus.repository.BusStopRepository;
 import com.example.egovbus.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -22,27 +28,75 @@ public class NotificationService {
     
     private final NotificationRepository notificationRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final BusStopRepository busStopRepository;
+    private final GeofenceEngine geofenceEngine;
     
     // Ethiopian SMS gateway configuration
     private static final String ETHIO_TELECOM_SMS_API = "https://api.ethiotelecom.et/sms/v1/send";
     
+    // Speed used for the arrival estimate when the bus has no route prediction
+    private static final double ARRIVAL_SPEED_KMH = 20;
+    
     /**
-     * Check and send bus arrival notifications
+     * Register an arrival alert for a passenger waiting at a stop (watched in memory by the geofence engine
+     * once the alert is committed, so a rolled back alert never fires)
      */
-    public void checkAndSendArrivalNotifications(Bus bus) {
-        // Find passengers with reservations on this bus
-        List<Notification> pendingNotifications = notificationRepository
-            .findPendingArrivalNotifications(bus.getId());
+    public Notification createArrivalAlert(User user, Bus bus, String stopName) {
+        BusStop stop = busStopRepository.findByName(stopName)
+            .orElseThrow(() -> new RuntimeException("Stop not found with name: " + stopName));
         
-        for (Notification notification : pendingNotifications) {
-            // Calculate distance to stop
-            double distance = calculateDistanceToStop(bus, notification.getStopName());
-            
-            // Send notification if bus is within 2km or 5 minutes away
-            if (distance < 2.0 || notification.getEstimatedMinutes() <= 5) {
-                sendArrivalNotification(notification);
-            }
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setBus(bus);
+        notification.setType(NotificationType.BUS_ARRIVAL);
+        notification.setTitle("Bus Arriving");
+        notification.setStopName(stop.getName());
+        
+        Notification saved = notificationRepository.save(notification);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    geofenceEngine.watch(saved, stop);
+                }
+            });
+        } else {
+            geofenceEngine.watch(saved, stop);
+        }
+        return saved;
+    }
+    
+    /**
+     * Drop pending arrival alerts of a passenger for a bus and stop
+     */
+    public void cancelArrivalAlerts(User user, Bus bus, String stopName) {
+        List<Notification> pending = notificationRepository
+            .findPendingArrivalNotifications(user.getId(), bus.getId(), stopName);
+        for (Notification notification : pending) {
+            geofenceEngine.unwatch(bus.getId(), notification.getId());
         }
+        notificationRepository.deleteAll(pending);
+    }
+    
+    /**
+     * Send the arrival notification when the bus enters the stop's geofence.
+     * Runs on the notification pool after the publishing transaction commits (or right away when the
+     * location was ingested without one), so SMS and push delivery never hold up location ingest.
+     */
+    @Async(NotificationConfig.NOTIFICATION_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGeofenceEvent(GeofenceEvent event) {
+        if (event.getType() != GeofenceEvent.Type.ENTER) {
+            return;
+        }
+        notificationRepository.findById(event.getNotificationId())
+            .filter(notification -> !Boolean.TRUE.equals(notification.getIsSent()))
+            .ifPresent(notification -> {
+                notification.setEstimatedMinutes(event.getEstimatedMinutes() != null
+                    ? event.getEstimatedMinutes()
+                    : (int) Math.ceil(event.getDistanceMeters() / 1000.0 * 60 / ARRIVAL_SPEED_KMH));
+                sendArrivalNotification(notification);
+            });
     }
     
     /**
@@ -193,14 +247,6 @@ public class NotificationService {
         return phone;
     }
     
-    /**
-     * Calculate distance to stop (simplified)
-     */
-    private double calculateDistanceToStop(Bus bus, String stopName) {
-        // In production, implement actual distance calculation
-        return 1.5; // Mock distance in km
-    }
-    
     /**
      * Format arrival message
      */
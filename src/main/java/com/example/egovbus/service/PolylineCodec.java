@@ -0,0 +1,74 @@
+package com.example.egovbus.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polyline Codec
+ * 노선 경로용 encoded polyline (정밀도 1e-5도, 좌표마다 이전 점과의 차이를 5비트 단위 가변 길이로 기록).
+ */
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * 좌표 목록 인코딩 ({위도, 경도} 배열)
+     */
+    public static String encode(List<double[]> points) {
+        StringBuilder encoded = new StringBuilder();
+        long previousLat = 0;
+        long previousLon = 0;
+        for (double[] point : points) {
+            long lat = Math.round(point[0] * PRECISION);
+            long lon = Math.round(point[1] * PRECISION);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lon - previousLon, encoded);
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * 디코딩 ({위도, 경도} 배열 목록)
+     */
+    public static List<double[]> decode(String encoded) {
+        List<double[]> points = new ArrayList<>();
+        int[] index = {0};
+        long lat = 0;
+        long lon = 0;
+        while (index[0] < encoded.length()) {
+            lat += decodeValue(encoded, index);
+            lon += decodeValue(encoded, index);
+            points.add(new double[]{lat / PRECISION, lon / PRECISION});
+        }
+        return points;
+    }
+
+    private static void encodeValue(long value, StringBuilder encoded) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+
+    private static long decodeValue(String encoded, int[] index) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline at offset " + index[0]);
+            }
+            chunk = encoded.charAt(index[0]++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.egovbus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read Coalescer
+ * 같은 조회의 동시 요청을 하나로 합친다 (single-flight).
+ *
+ * 조회 이름마다 진행 중인 조회가 있으면 그 결과를 기다리고 (join), 끝난 지
+ * bus.monitoring.coalescing.freshness-millis 가 지나지 않은 결과가 있으면 그대로 쓴다 (hit).
+ * 둘 다 아니면 요청한 스레드가 직접 조회한다 (miss). 따라서 DB 는 조회 이름마다 주기당 한 번만 조회된다.
+ * 실패한 조회는 기다리던 요청에 같은 예외를 던지고 보관하지 않는다.
+ */
+@Component
+public class ReadCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final long freshnessNanos;
+
+    // 조회 이름 -> 진행 중이거나 마지막으로 끝난 조회
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    // 조회 이름 -> hit, miss, join 카운터
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public ReadCoalescer(MeterRegistry meterRegistry,
+                         @Value("${bus.monitoring.coalescing.freshness-millis:1000}") long freshnessMillis) {
+        this.meterRegistry = meterRegistry;
+        this.freshnessNanos = TimeUnit.MILLISECONDS.toNanos(freshnessMillis);
+    }
+
+    /**
+     * 조회 결과 (진행 중인 조회에 합류하거나, 신선한 결과를 쓰거나, 직접 조회)
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String name, Supplier<V> loader) {
+        Counter[] counter = counters.computeIfAbsent(name, this::register);
+        while (true) {
+            Flight existing = flights.get(name);
+            if (existing != null) {
+                if (!existing.result.isDone()) {
+                    counter[2].increment();
+                    return (V) await(existing);
+                }
+                if (System.nanoTime() - existing.completedAt < freshnessNanos) {
+                    counter[0].increment();
+                    return (V) existing.result.join();
+                }
+            }
+            Flight flight = new Flight();
+            boolean started = existing == null
+                ? flights.putIfAbsent(name, flight) == null
+                : flights.replace(name, existing, flight);
+            if (!started) {
+                continue;  // 다른 요청이 먼저 조회를 시작했다
+            }
+            counter[1].increment();
+            try {
+                V value = loader.get();
+                flight.completedAt = System.nanoTime();
+                flight.result.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flights.remove(name, flight);
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Object await(Flight flight) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Counter[] register(String name) {
+        return new Counter[]{
+            result(name, "hit"),
+            result(name, "miss"),
+            result(name, "join")
+        };
+    }
+
+    private Counter result(String name, String result) {
+        return Counter.builder("bus.read.coalescing")
+            .tag("query", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static final class Flight {
+
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long completedAt;
+    }
+}
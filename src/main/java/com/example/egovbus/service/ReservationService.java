@@ -25,6 +25,7 @@ public class ReservationService {
     private final UserRepository userRepository;
     private final PaymentService paymentService;
     private final NotificationService notificationService;
+    private final BusService busService;
     private final SimpMessagingTemplate messagingTemplate;
     
     /**
@@ -85,6 +86,14 @@ public class ReservationService {
             // Send confirmation notification
             notificationService.sendPaymentConfirmation(reservation);
             
+            // Alert the passenger when the bus approaches the boarding stop
+            try {
+                notificationService.createArrivalAlert(reservation.getPassenger(), reservation.getBus(),
+                    reservation.getBoardingStop());
+            } catch (RuntimeException e) {
+                log.warn("No arrival alert for reservation {}: {}", reservation.getConfirmationCode(), e.getMessage());
+            }
+            
             // Update via WebSocket
             messagingTemplate.convertAndSend("/topic/reservations", reservation);
             
@@ -110,6 +119,8 @@ public class ReservationService {
         }
         
         reservation.setStatus(ReservationStatus.CANCELLED);
+        notificationService.cancelArrivalAlerts(reservation.getPassenger(), reservation.getBus(),
+            reservation.getBoardingStop());
         
         // Send cancellation notification
         notificationService.sendCancellationNotification(reservation);
@@ -143,9 +154,7 @@ public class ReservationService {
         reservation.setStatus(ReservationStatus.BOARDING);
         
         // Update bus passenger count
-        Bus bus = reservation.getBus();
-        bus.setCurrentPassengers(bus.getCurrentPassengers() + 1);
-        busRepository.save(bus);
+        busService.adjustPassengerCount(reservation.getBus().getId(), 1);
         
         log.info("Passenger checked in: {}", confirmationCode);
         
@@ -0,0 +1,189 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.BusStop;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Route Geometry
+ * 노선 경로 폴리라인과 누적 거리 (불변).
+ *
+ * 좌표는 경로 평균 위도 기준 등장방형 투영(미터)으로 저장하고, 각 점의 누적 거리로
+ * 위치를 "노선 시작점부터의 거리"(선형 위치) 하나로 나타낸다. 정류장도 경로에 투영해
+ * 선형 위치를 미리 계산해 두므로 다음 정류장/남은 거리는 1차원 비교로 구한다.
+ */
+public final class RouteGeometry {
+
+    private static final double METERS_PER_DEGREE = 6_371_000 * Math.PI / 180;
+
+    private final double cosLatitude;
+    private final double[] x;
+    private final double[] y;
+    private final double[] distances;  // 각 점까지의 누적 거리 (미터)
+
+    private final long[] stopIds;
+    private final String[] stopNames;
+    private final double[] stopDistances;  // 정류장 선형 위치 (운행 순서, 단조 증가)
+
+    private RouteGeometry(List<double[]> points, List<BusStop> stops) {
+        int n = points.size();
+        cosLatitude = Math.cos(Math.toRadians(points.stream().mapToDouble(point -> point[0]).average().orElse(0)));
+        x = new double[n];
+        y = new double[n];
+        distances = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = projectX(points.get(i)[1]);
+            y[i] = projectY(points.get(i)[0]);
+            if (i > 0) {
+                distances[i] = distances[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            }
+        }
+
+        int stopCount = stops.size();
+        stopIds = new long[stopCount];
+        stopNames = new String[stopCount];
+        stopDistances = new double[stopCount];
+        double from = 0;
+        for (int i = 0; i < stopCount; i++) {
+            BusStop stop = stops.get(i);
+            stopIds[i] = stop.getId();
+            stopNames[i] = stop.getName();
+            // 정류장은 순서대로 놓이므로 이전 정류장 이후 구간에서만 찾는다 (경로가 되돌아와도 올바른 통과 지점)
+            stopDistances[i] = project(stop.getLatitude(), stop.getLongitude(), from, length()).getDistance();
+            from = stopDistances[i];
+        }
+    }
+
+    /**
+     * 폴리라인과 정류장으로 생성 (점이 2개 미만이면 null)
+     */
+    public static RouteGeometry of(List<double[]> points, List<BusStop> stops) {
+        if (points.size() < 2) {
+            return null;
+        }
+        return new RouteGeometry(points, stops);
+    }
+
+    public double length() {
+        return distances[distances.length - 1];
+    }
+
+    /**
+     * 경로 전체에서 가장 가까운 지점
+     */
+    public Projection project(double latitude, double longitude) {
+        return project(latitude, longitude, 0, length());
+    }
+
+    /**
+     * 선형 위치 [from, to] 구간에서 가장 가까운 지점
+     */
+    public Projection project(double latitude, double longitude, double from, double to) {
+        double px = projectX(longitude);
+        double py = projectY(latitude);
+        int last = distances.length - 1;
+        int segment = Math.max(0, Math.min(last - 1, segmentAt(Math.max(0, from))));
+
+        double bestDistanceSquared = Double.MAX_VALUE;
+        double bestAlong = 0;
+        double bestX = x[0];
+        double bestY = y[0];
+        for (; segment < last && distances[segment] <= to; segment++) {
+            double dx = x[segment + 1] - x[segment];
+            double dy = y[segment + 1] - y[segment];
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : ((px - x[segment]) * dx + (py - y[segment]) * dy) / lengthSquared;
+            // 구간 경계에 걸친 첫/마지막 선분은 요청 범위 안쪽으로 자른다
+            double segmentLength = distances[segment + 1] - distances[segment];
+            if (segmentLength > 0) {
+                t = Math.max(t, (from - distances[segment]) / segmentLength);
+                t = Math.min(t, (to - distances[segment]) / segmentLength);
+            }
+            t = Math.max(0, Math.min(1, t));
+            double cx = x[segment] + t * dx;
+            double cy = y[segment] + t * dy;
+            double distanceSquared = (px - cx) * (px - cx) + (py - cy) * (py - cy);
+            if (distanceSquared < bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                bestAlong = distances[segment] + t * segmentLength;
+                bestX = cx;
+                bestY = cy;
+            }
+        }
+        return new Projection(bestAlong, Math.sqrt(bestDistanceSquared),
+            bestY / METERS_PER_DEGREE, bestX / (cosLatitude * METERS_PER_DEGREE));
+    }
+
+    /**
+     * 선형 위치의 좌표 ({위도, 경도})
+     */
+    public double[] pointAt(double distance) {
+        double clamped = Math.max(0, Math.min(length(), distance));
+        int segment = Math.min(distances.length - 2, segmentAt(clamped));
+        double segmentLength = distances[segment + 1] - distances[segment];
+        double t = segmentLength == 0 ? 0 : (clamped - distances[segment]) / segmentLength;
+        double px = x[segment] + t * (x[segment + 1] - x[segment]);
+        double py = y[segment] + t * (y[segment + 1] - y[segment]);
+        return new double[]{py / METERS_PER_DEGREE, px / (cosLatitude * METERS_PER_DEGREE)};
+    }
+
+    public int stopCount() {
+        return stopIds.length;
+    }
+
+    public long stopId(int index) {
+        return stopIds[index];
+    }
+
+    public String stopName(int index) {
+        return stopNames[index];
+    }
+
+    public double stopDistance(int index) {
+        return stopDistances[index];
+    }
+
+    /**
+     * 선형 위치 이후 첫 정류장 순번 (모두 지났으면 stopCount())
+     */
+    public int nextStopIndex(double distance) {
+        int index = Arrays.binarySearch(stopDistances, distance);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // 정류장 위치와 같으면 그 정류장을 다음 정류장으로 본다 (같은 위치 정류장이 여럿이면 첫 번째)
+        while (index > 0 && stopDistances[index - 1] == distance) {
+            index--;
+        }
+        return index;
+    }
+
+    // distances[i] <= distance 인 마지막 점
+    private int segmentAt(double distance) {
+        int index = Arrays.binarySearch(distances, distance);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private double projectX(double longitude) {
+        return longitude * cosLatitude * METERS_PER_DEGREE;
+    }
+
+    private double projectY(double latitude) {
+        return latitude * METERS_PER_DEGREE;
+    }
+
+    /**
+     * 경로 위 투영 결과
+     */
+    @lombok.Value
+    public static class Projection {
+
+        double distance;  // 선형 위치 (미터)
+
+        double offsetMeters;  // 원래 좌표와 경로 사이 거리
+
+        double latitude;
+
+        double longitude;
+    }
+}
@@ -1,12 +1,23 @@
 package com.example.egovbus.service;
 
+import com.example.egovbus.dto.ListDelta;
+import com.example.egovbus.model.Bus;
+import com.example.egovbus.model.BusStop;
 import com.example.egovbus.model.Route;
+import com.example.egovbus.model.StopSnap;
+import com.example.egovbus.repository.BusStopRepository;
 import com.example.egovbus.repository.RouteRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Route Service Implementation
@@ -17,6 +28,16 @@ import java.util.Optional;
 public class RouteService {
     
     private final RouteRepository routeRepository;
+    private final BusStopRepository busStopRepository;
+    private final StopIndex stopIndex;
+    private final RouteShapeIndex routeShapeIndex;
+    private final ReadCoalescer readCoalescer;
+    private final FleetStateStore fleetStateStore;
+    private final MapMatcher mapMatcher;
+    private final EtaEngine etaEngine;
+    
+    // 노선 목록 버전 (ETag, ?since= 조회)
+    private final ChangeLog changes = new ChangeLog();
     
     /**
      * 모든 노선 조회
@@ -32,6 +53,62 @@ public class RouteService {
         return routeRepository.findByIsActive(true);
     }
     
+    /**
+     * 노선 목록 버전 (노선 생성, 수정, 정류장 변경, 삭제마다 증가)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getVersion() {
+        return changes.version();
+    }
+    
+    /**
+     * 노선 목록 태그 (ETag 값)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getRouteListTag(boolean activeOnly) {
+        return SharedResult.tag(activeOnly ? "active-routes" : "routes", changes.version());
+    }
+    
+    /**
+     * 노선 목록 (동시 요청은 한 번의 조회와 직렬화를 공유, 결과는 freshness 주기만큼 재사용)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SharedResult<List<Route>> getSharedRoutes(boolean activeOnly) {
+        return readCoalescer.get(activeOnly ? "routes.active" : "routes.all", () -> {
+            long version = changes.version();
+            String tag = SharedResult.tag(activeOnly ? "active-routes" : "routes", version);
+            return new SharedResult<>(tag, version, activeOnly ? getActiveRoutes() : getAllRoutes());
+        });
+    }
+    
+    /**
+     * 버전 이후 바뀐 노선 (activeOnly 면 비활성화된 노선은 removed 로).
+     * 바뀐 노선만 조회하고, 모르는 버전이면 전체 목록을 돌려준다.
+     */
+    @Transactional(readOnly = true)
+    public ListDelta<Route> getRouteChanges(long since, boolean activeOnly) {
+        ChangeLog.Changes delta = changes.since(since);
+        if (delta == null) {
+            long version = changes.version();
+            return ListDelta.full(version, activeOnly ? getActiveRoutes() : getAllRoutes());
+        }
+        List<Route> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>(delta.getRemoved());
+        if (!delta.getChanged().isEmpty()) {
+            Map<Long, Route> found = new HashMap<>();
+            routeRepository.findAllById(delta.getChanged()).forEach(route -> found.put(route.getId(), route));
+            for (Long routeId : delta.getChanged()) {
+                Route route = found.get(routeId);
+                if (route != null && (!activeOnly || Boolean.TRUE.equals(route.getIsActive()))) {
+                    changed.add(route);
+                } else {
+                    removed.add(routeId);
+                }
+            }
+        }
+        return ListDelta.changes(delta.getVersion(), changed, removed);
+    }
+    
     /**
      * 노선 ID로 조회
      */
@@ -72,7 +149,11 @@ public class RouteService {
      */
     public Route createRoute(Route route) {
         route.setIsActive(true);
-        return routeRepository.save(route);
+        route.setStops(resolveStops(route.getStops()));
+        Route savedRoute = routeRepository.save(route);
+        changes.touchAfterCommit(savedRoute.getId());
+        reloadIndexes();
+        return savedRoute;
     }
     
     /**
@@ -86,13 +167,17 @@ public class RouteService {
         route.setRouteName(routeDetails.getRouteName());
         route.setStartPoint(routeDetails.getStartPoint());
         route.setEndPoint(routeDetails.getEndPoint());
-        route.setStops(routeDetails.getStops());
+        route.setStops(resolveStops(routeDetails.getStops()));
+        route.setShape(routeDetails.getShape());
         route.setTotalDistance(routeDetails.getTotalDistance());
         route.setEstimatedTime(routeDetails.getEstimatedTime());
         route.setFare(routeDetails.getFare());
         route.setOperatingHours(routeDetails.getOperatingHours());
         
-        return routeRepository.save(route);
+        Route savedRoute = routeRepository.save(route);
+        changes.touchAfterCommit(id);
+        reloadIndexes();
+        return savedRoute;
     }
     
     /**
@@ -103,32 +188,57 @@ public class RouteService {
             .orElseThrow(() -> new RuntimeException("Route not found with id: " + id));
         
         route.setIsActive(!route.getIsActive());
+        changes.touchAfterCommit(id);
         return routeRepository.save(route);
     }
     
     /**
-     * 노선 삭제
+     * 노선 삭제 (노선 버스도 함께 삭제되므로 커밋 후 실시간 상태에서 제거)
      */
     public void deleteRoute(Long id) {
+        List<Long> busIds = routeRepository.findById(id)
+            .map(route -> route.getBuses() != null
+                ? route.getBuses().stream().map(Bus::getId).collect(Collectors.toList())
+                : Collections.<Long>emptyList())
+            .orElse(Collections.emptyList());
+        
         routeRepository.deleteById(id);
+        changes.removeAfterCommit(id);
+        for (Long busId : busIds) {
+            fleetStateStore.evictAfterCommit(busId, () -> {
+                mapMatcher.reset(busId);
+                etaEngine.reset(busId);
+            });
+        }
+        reloadIndexes();
     }
     
     /**
-     * 정류장 추가
+     * 정류장 추가 (좌표가 주어지면 없는 정류장은 새로 등록)
      */
-    public Route addStop(Long routeId, String stopName, int position) {
+    public Route addStop(Long routeId, String stopName, Double latitude, Double longitude, int position) {
         Route route = routeRepository.findById(routeId)
             .orElseThrow(() -> new RuntimeException("Route not found with id: " + routeId));
         
-        List<String> stops = route.getStops();
+        BusStop stop = busStopRepository.findByName(stopName).orElseGet(() -> {
+            if (latitude == null || longitude == null) {
+                throw new RuntimeException("Stop not found with name: " + stopName);
+            }
+            return busStopRepository.save(new BusStop(stopName, latitude, longitude));
+        });
+        
+        List<BusStop> stops = route.getStops();
         if (position >= 0 && position <= stops.size()) {
-            stops.add(position, stopName);
+            stops.add(position, stop);
         } else {
-            stops.add(stopName);
+            stops.add(stop);
         }
         
         route.setStops(stops);
-        return routeRepository.save(route);
+        Route savedRoute = routeRepository.save(route);
+        changes.touchAfterCommit(routeId);
+        reloadIndexes();
+        return savedRoute;
     }
     
     /**
@@ -138,7 +248,64 @@ public class RouteService {
         Route route = routeRepository.findById(routeId)
             .orElseThrow(() -> new RuntimeException("Route not found with id: " + routeId));
         
-        route.getStops().remove(stopName);
-        return routeRepository.save(route);
+        route.getStops().removeIf(stop -> stop.getName().equals(stopName));
+        Route savedRoute = routeRepository.save(route);
+        changes.touchAfterCommit(routeId);
+        reloadIndexes();
+        return savedRoute;
+    }
+    
+    /**
+     * 모든 정류장 조회
+     */
+    @Transactional(readOnly = true)
+    public List<BusStop> getAllStops() {
+        return busStopRepository.findAll();
+    }
+    
+    /**
+     * 정류장 등록
+     */
+    public BusStop createStop(BusStop stop) {
+        if (busStopRepository.findByName(stop.getName()).isPresent()) {
+            throw new RuntimeException("Stop already exists with name: " + stop.getName());
+        }
+        BusStop savedStop = busStopRepository.save(stop);
+        reloadIndexes();
+        return savedStop;
+    }
+    
+    /**
+     * 좌표에서 가장 가까운 정류장 (routeId 가 있으면 노선상 다음 정류장 포함)
+     */
+    @Transactional(readOnly = true)
+    public Optional<StopSnap> findNearestStop(Long routeId, double latitude, double longitude) {
+        return Optional.ofNullable(stopIndex.snap(routeId, latitude, longitude));
+    }
+    
+    /**
+     * 정류장/경로 인덱스를 커밋 후 다시 로드
+     */
+    private void reloadIndexes() {
+        stopIndex.reloadAfterCommit();
+        routeShapeIndex.reloadAfterCommit();
+    }
+    
+    /**
+     * 요청의 정류장 참조(ID 또는 이름)를 등록된 정류장으로 변환
+     */
+    private List<BusStop> resolveStops(List<BusStop> requested) {
+        List<BusStop> stops = new ArrayList<>();
+        if (requested == null) {
+            return stops;
+        }
+        for (BusStop stop : requested) {
+            Optional<BusStop> registered = stop.getId() != null
+                ? busStopRepository.findById(stop.getId())
+                : busStopRepository.findByName(stop.getName());
+            stops.add(registered.orElseThrow(() ->
+                new RuntimeException("Stop not found: " + (stop.getId() != null ? stop.getId() : stop.getName()))));
+        }
+        return stops;
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.BusStop;
+import com.example.egovbus.model.Route;
+import com.example.egovbus.repository.RouteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Route Shape Index
+ * 노선별 경로 형상 (RouteGeometry) 보관.
+ *
+ * Route.shape (encoded polyline) 가 없으면 정류장 좌표를 운행 순서대로 이은 선을 경로로 쓴다.
+ * 노선이 바뀌면 커밋 후 전체를 새로 만들어 교체한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteShapeIndex {
+
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Map<Long, RouteGeometry> geometries = Collections.emptyMap();
+
+    /**
+     * 노선 경로 전체 로드
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void reload() {
+        Map<Long, RouteGeometry> loaded = transactionTemplate.execute(status -> {
+            Map<Long, RouteGeometry> built = new HashMap<>();
+            for (Route route : routeRepository.findAllWithStops()) {
+                RouteGeometry geometry = build(route);
+                if (geometry != null) {
+                    built.put(route.getId(), geometry);
+                }
+            }
+            return built;
+        });
+        geometries = loaded != null ? Collections.unmodifiableMap(loaded) : Collections.emptyMap();
+        log.info("Route shape index loaded {} routes", geometries.size());
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤 다시 로드 (트랜잭션이 없으면 즉시)
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * 노선 경로 (없으면 null)
+     */
+    public RouteGeometry get(Long routeId) {
+        return routeId != null ? geometries.get(routeId) : null;
+    }
+
+    private RouteGeometry build(Route route) {
+        List<BusStop> stops = route.getStops() != null ? route.getStops() : Collections.emptyList();
+        List<double[]> points;
+        if (route.getShape() != null && !route.getShape().isEmpty()) {
+            try {
+                points = PolylineCodec.decode(route.getShape());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring invalid shape of route {}: {}", route.getRouteNumber(), e.getMessage());
+                points = stopPoints(stops);
+            }
+        } else {
+            points = stopPoints(stops);
+        }
+        return RouteGeometry.of(points, stops);
+    }
+
+    private static List<double[]> stopPoints(List<BusStop> stops) {
+        return stops.stream()
+            .map(stop -> new double[]{stop.getLatitude(), stop.getLongitude()})
+            .collect(Collectors.toList());
+    }
+}
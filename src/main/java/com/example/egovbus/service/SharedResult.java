@@ -0,0 +1,60 @@
+package com.example.egovbus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shared Result
+ * 여러 요청이 함께 쓰는 조회 결과와 그 JSON (처음 요청한 쪽이 한 번만 직렬화한다).
+ * tag 와 version 은 조회를 시작할 때의 목록 버전이다. value 는 공유되므로 바꾸면 안 된다.
+ */
+public final class SharedResult<T> {
+
+    private final String tag;
+    private final long version;
+    private final T value;
+    private volatile byte[] json;
+
+    public SharedResult(String tag, long version, T value) {
+        this.tag = tag;
+        this.version = version;
+        this.value = value;
+    }
+
+    /**
+     * 목록 종류와 버전으로 만든 태그 (ETag 값)
+     */
+    public static String tag(String kind, long... versions) {
+        StringBuilder tag = new StringBuilder(kind);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.toString();
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public byte[] toJson(ObjectMapper objectMapper) throws JsonProcessingException {
+        byte[] encoded = json;
+        if (encoded == null) {
+            synchronized (this) {
+                encoded = json;
+                if (encoded == null) {
+                    encoded = objectMapper.writeValueAsBytes(value);
+                    json = encoded;
+                }
+            }
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.BusStop;
+import com.example.egovbus.model.Route;
+import com.example.egovbus.model.StopSnap;
+import com.example.egovbus.repository.BusStopRepository;
+import com.example.egovbus.repository.RouteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stop Index
+ * 정류장 좌표의 kd-tree 인덱스 (전체 정류장 1개 + 노선별 1개).
+ *
+ * 위치 수신 시 가장 가까운 정류장과 노선상 다음 정류장을 O(log n)으로 찾는다.
+ * 인덱스는 불변 스냅샷으로, 노선/정류장이 바뀌면 커밋 후 새로 만들어 교체한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StopIndex {
+
+    private static final double METERS_PER_DEGREE = 6_371_000 * Math.PI / 180;
+
+    private final BusStopRepository busStopRepository;
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * 정류장/노선 전체 로드
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void reload() {
+        Snapshot loaded = transactionTemplate.execute(status ->
+            Snapshot.build(busStopRepository.findAll(), routeRepository.findAllWithStops()));
+        snapshot = loaded != null ? loaded : Snapshot.EMPTY;
+        log.info("Stop index loaded {} stops on {} routes", snapshot.all.size(), snapshot.routes.size());
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤 다시 로드 (트랜잭션이 없으면 즉시)
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * 위치를 정류장에 대응 (정류장이 없으면 null).
+     * routeId 가 있으면 노선 정류장 중 가장 가까운 정류장을 기준으로 다음 정류장을 정한다.
+     */
+    public StopSnap snap(Long routeId, double latitude, double longitude) {
+        Snapshot current = snapshot;
+        if (current.all.size() == 0) {
+            return null;
+        }
+        double x = current.projectX(longitude);
+        double y = current.projectY(latitude);
+
+        int nearest = current.all.nearest(x, y);
+        StopSnap.StopSnapBuilder builder = StopSnap.builder()
+            .nearestStopId(current.all.ids[nearest])
+            .nearestStopName(current.all.names[nearest])
+            .nearestStopDistance(current.all.distance(nearest, x, y));
+
+        StopTree route = routeId != null ? current.routes.get(routeId) : null;
+        if (route != null && route.size() > 0) {
+            int closest = route.nearest(x, y);
+            int next = closest;
+            if (closest < route.size() - 1) {
+                // 정류장을 지나 다음 구간 쪽에 있으면 (구간 방향 투영이 양수) 다음 정류장으로 본다
+                double dx = route.x[closest + 1] - route.x[closest];
+                double dy = route.y[closest + 1] - route.y[closest];
+                if ((x - route.x[closest]) * dx + (y - route.y[closest]) * dy > 0) {
+                    next = closest + 1;
+                }
+            }
+            builder.nextStopId(route.ids[next])
+                .nextStopName(route.names[next])
+                .nextStopSequence(next)
+                .nextStopDistance(route.distance(next, x, y));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 불변 인덱스 스냅샷. 좌표는 평균 위도 기준 등장방형 투영(미터)으로 저장한다.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(1.0, new StopTree(Collections.emptyList(), 1.0), Collections.emptyMap());
+
+        final double cosLatitude;
+        final StopTree all;
+        final Map<Long, StopTree> routes;
+
+        Snapshot(double cosLatitude, StopTree all, Map<Long, StopTree> routes) {
+            this.cosLatitude = cosLatitude;
+            this.all = all;
+            this.routes = routes;
+        }
+
+        static Snapshot build(List<BusStop> stops, List<Route> routeList) {
+            double cosLatitude = Math.cos(Math.toRadians(stops.stream()
+                .mapToDouble(BusStop::getLatitude).average().orElse(0)));
+            Map<Long, StopTree> routes = new HashMap<>();
+            for (Route route : routeList) {
+                if (route.getStops() != null && !route.getStops().isEmpty()) {
+                    routes.put(route.getId(), new StopTree(route.getStops(), cosLatitude));
+                }
+            }
+            return new Snapshot(cosLatitude, new StopTree(stops, cosLatitude), routes);
+        }
+
+        double projectX(double longitude) {
+            return longitude * cosLatitude * METERS_PER_DEGREE;
+        }
+
+        double projectY(double latitude) {
+            return latitude * METERS_PER_DEGREE;
+        }
+    }
+
+    /**
+     * 정류장 배열 위의 암시적 kd-tree. 배열 순서는 입력 순서(노선이면 운행 순서)를 유지하고,
+     * tree 는 구간 [lo, hi) 의 중앙값이 분할 노드가 되도록 재배열한 인덱스다.
+     */
+    private static final class StopTree {
+
+        final long[] ids;
+        final String[] names;
+        final double[] x;
+        final double[] y;
+        final int[] tree;
+
+        StopTree(List<BusStop> stops, double cosLatitude) {
+            int n = stops.size();
+            ids = new long[n];
+            names = new String[n];
+            x = new double[n];
+            y = new double[n];
+            tree = new int[n];
+            for (int i = 0; i < n; i++) {
+                BusStop stop = stops.get(i);
+                ids[i] = stop.getId();
+                names[i] = stop.getName();
+                x[i] = stop.getLongitude() * cosLatitude * METERS_PER_DEGREE;
+                y[i] = stop.getLatitude() * METERS_PER_DEGREE;
+                tree[i] = i;
+            }
+            build(0, n, 0);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        double distance(int index, double px, double py) {
+            return Math.hypot(x[index] - px, y[index] - py);
+        }
+
+        int nearest(double px, double py) {
+            Search search = new Search(px, py);
+            search(search, 0, tree.length, 0);
+            return search.best;
+        }
+
+        private void build(int lo, int hi, int depth) {
+            if (hi - lo <= 1) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, depth % 2 == 0 ? x : y);
+            build(lo, mid, depth + 1);
+            build(mid + 1, hi, depth + 1);
+        }
+
+        // tree[lo..hi] 에서 k번째 원소가 제자리에 오도록 부분 정렬 (quickselect)
+        private void select(int lo, int hi, int k, double[] axis) {
+            while (lo < hi) {
+                double pivot = axis[tree[(lo + hi) >>> 1]];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (axis[tree[i]] < pivot) {
+                        i++;
+                    }
+                    while (axis[tree[j]] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int swap = tree[i];
+                        tree[i] = tree[j];
+                        tree[j] = swap;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void search(Search search, int lo, int hi, int depth) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int node = tree[mid];
+            double dx = x[node] - search.x;
+            double dy = y[node] - search.y;
+            double distance = dx * dx + dy * dy;
+            if (distance < search.bestDistance) {
+                search.bestDistance = distance;
+                search.best = node;
+            }
+
+            double diff = depth % 2 == 0 ? search.x - x[node] : search.y - y[node];
+            if (diff < 0) {
+                search(search, lo, mid, depth + 1);
+                if (diff * diff < search.bestDistance) {
+                    search(search, mid + 1, hi, depth + 1);
+                }
+            } else {
+                search(search, mid + 1, hi, depth + 1);
+                if (diff * diff < search.bestDistance) {
+                    search(search, lo, mid, depth + 1);
+                }
+            }
+        }
+    }
+
+    private static final class Search {
+
+        final double x;
+        final double y;
+        double bestDistance = Double.MAX_VALUE;
+        int best = -1;
+
+        Search(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
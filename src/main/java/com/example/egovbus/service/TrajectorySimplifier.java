@@ -0,0 +1,118 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.LocationFix;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Trajectory Simplifier
+ * Douglas-Peucker 궤적 단순화.
+ *
+ * 편차가 가장 큰 구간부터 점을 추가하므로 허용 오차(미터)와 최대 점 수를 함께 적용할 수 있다.
+ * 최대 점 수에 먼저 도달하면 그때까지 가장 중요한 점들만 남는다.
+ */
+public final class TrajectorySimplifier {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    // Web Mercator 줌 0에서 적도 기준 픽셀당 미터
+    private static final double METERS_PER_PIXEL_AT_ZOOM_0 = 156_543.03392;
+
+    private TrajectorySimplifier() {
+    }
+
+    /**
+     * 지도 줌 레벨에서 한 픽셀에 해당하는 허용 오차(미터)
+     */
+    public static double toleranceForZoom(int zoom, double latitude) {
+        return METERS_PER_PIXEL_AT_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    /**
+     * 궤적 단순화. 입력 순서를 유지하며 처음과 마지막 점은 항상 남긴다.
+     */
+    public static List<LocationFix> simplify(List<LocationFix> points, double toleranceMeters, int maxPoints) {
+        int n = points.size();
+        int limit = Math.max(2, maxPoints);
+        if (n <= 2 || (n <= limit && toleranceMeters <= 0)) {
+            return new ArrayList<>(points);
+        }
+
+        // 첫 점 위도 기준 등장방형 투영 (도시 규모에서 충분히 정확)
+        double cosLatitude = Math.cos(Math.toRadians(points.get(0).getLatitude()));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            LocationFix point = points.get(i);
+            x[i] = Math.toRadians(point.getLongitude()) * cosLatitude * EARTH_RADIUS_METERS;
+            y[i] = Math.toRadians(point.getLatitude()) * EARTH_RADIUS_METERS;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = 2;
+
+        PriorityQueue<Segment> queue = new PriorityQueue<>((a, b) -> Double.compare(b.distance, a.distance));
+        offer(queue, x, y, 0, n - 1);
+        while (!queue.isEmpty() && kept < limit) {
+            Segment segment = queue.poll();
+            if (segment.distance <= toleranceMeters) {
+                break;
+            }
+            keep[segment.farthest] = true;
+            kept++;
+            offer(queue, x, y, segment.start, segment.farthest);
+            offer(queue, x, y, segment.farthest, segment.end);
+        }
+
+        List<LocationFix> result = new ArrayList<>(kept);
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static void offer(PriorityQueue<Segment> queue, double[] x, double[] y, int start, int end) {
+        if (end - start < 2) {
+            return;
+        }
+        int farthest = start + 1;
+        double maxDistance = -1;
+        for (int i = start + 1; i < end; i++) {
+            double distance = distanceToSegment(x[i], y[i], x[start], y[start], x[end], y[end]);
+            if (distance > maxDistance) {
+                maxDistance = distance;
+                farthest = i;
+            }
+        }
+        queue.add(new Segment(start, end, farthest, maxDistance));
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+
+    private static final class Segment {
+
+        final int start;
+        final int end;
+        final int farthest;
+        final double distance;
+
+        Segment(int start, int end, int farthest, double distance) {
+            this.start = start;
+            this.end = end;
+            this.farthest = farthest;
+            this.distance = distance;
+        }
+    }
+}
@@ -6,6 +6,9 @@ let isTracking = false;
 let ws = null;
 let stompClient = null;
 let currentLanguage = 'en';
+let locationSequence = 0;
+let pendingLocations = []; // fixes buffered while the socket is down
+const MAX_PENDING_LOCATIONS = 5000;
 
 // Initialize app
 document.addEventListener('DOMContentLoaded', () => {
@@ -212,23 +215,59 @@ function stopGPSTracking() {
 
 // Send location update via WebSocket
 function sendLocationUpdate(position) {
-    if (!stompClient || !stompClient.connected || !currentBus) return;
+    if (!currentBus) return;
     
     const locationData = {
         busId: currentBus.id,
+        sequence: ++locationSequence,
         latitude: position.coords.latitude,
         longitude: position.coords.longitude,
-        speed: position.coords.speed ? position.coords.speed * 3.6 : 0, // Convert m/s to km/h
+        speed: position.coords.speed != null ? position.coords.speed * 3.6 : null, // Convert m/s to km/h
         heading: position.coords.heading,
         accuracy: position.coords.accuracy,
-        timestamp: new Date().toISOString()
+        deviceTime: Date.now()
     };
     
+    if (!stompClient || !stompClient.connected) {
+        // Keep the fix and send it with the rest once we are back online
+        if (pendingLocations.length >= MAX_PENDING_LOCATIONS) {
+            pendingLocations.shift();
+        }
+        pendingLocations.push(locationData);
+        return;
+    }
+    
     stompClient.send('/app/update-location', {}, JSON.stringify(locationData));
     
     console.log('Location sent:', locationData);
 }
 
+// Send fixes buffered during a dead zone in one request
+async function flushPendingLocations() {
+    if (pendingLocations.length === 0) return;
+    
+    const batch = pendingLocations;
+    pendingLocations = [];
+    
+    try {
+        const response = await fetch('/api/buses/locations/batch', {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                'Authorization': `Bearer ${localStorage.getItem('driverToken')}`
+            },
+            body: JSON.stringify(batch)
+        });
+        
+        if (!response.ok) {
+            throw new Error(`HTTP ${response.status}`);
+        }
+    } catch (error) {
+        console.error('Error sending buffered locations:', error);
+        pendingLocations = batch.concat(pendingLocations).slice(-MAX_PENDING_LOCATIONS);
+    }
+}
+
 // Update GPS UI
 function updateGPSUI(active) {
     const indicator = document.getElementById('gpsIndicator');
@@ -377,6 +416,8 @@ function initializeWebSocket() {
     stompClient.connect({}, (frame) => {
         console.log('WebSocket connected:', frame);
         
+        flushPendingLocations();
+        
         // Subscribe to notifications
         if (currentUser) {
             stompClient.subscribe(`/queue/user-${currentUser.userId}/notifications`, (message) => {
@@ -384,6 +425,16 @@ function initializeWebSocket() {
                 showNotification(notification.message, 'info');
             });
         }
+        
+        // Location update acknowledgements for this bus only
+        if (currentUser && currentUser.busId) {
+            stompClient.subscribe(`/queue/driver-${currentUser.busId}/ack`, (message) => {
+                const ack = JSON.parse(message.body);
+                if (ack.status !== 'success') {
+                    console.error('Location update rejected:', ack.message);
+                }
+            });
+        }
     }, (error) => {
         console.error('WebSocket error:', error);
         setTimeout(initializeWebSocket, 5000); // Retry after 5 seconds
@@ -0,0 +1,76 @@
+package com.example.egovbus.dto;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DriverTelemetryFrameTest {
+
+    @Test
+    void roundTripsAllFields() {
+        DriverLocationUpdate update = new DriverLocationUpdate();
+        update.setBusId(4_000_000_000L);
+        update.setSequence(42L);
+        update.setLatitude(9.0054321);
+        update.setLongitude(38.7636789);
+        update.setSpeed(37.4);
+        update.setHeading(271.3);
+        update.setDeviceTime(1_760_000_000_123L);
+
+        byte[] bytes = DriverTelemetryFrame.encode(update);
+        DriverLocationUpdate decoded = DriverTelemetryFrame.decode(bytes);
+
+        assertThat(bytes).hasSize(DriverTelemetryFrame.LENGTH);
+        assertThat(decoded.getBusId()).isEqualTo(4_000_000_000L);
+        assertThat(decoded.getSequence()).isEqualTo(42L);
+        assertThat(decoded.getLatitude()).isCloseTo(9.0054321, within(1e-7));
+        assertThat(decoded.getLongitude()).isCloseTo(38.7636789, within(1e-7));
+        assertThat(decoded.getSpeed()).isCloseTo(37.4, within(1e-9));
+        assertThat(decoded.getHeading()).isCloseTo(271.3, within(1e-9));
+        assertThat(decoded.getDeviceTime()).isEqualTo(1_760_000_000_123L);
+    }
+
+    @Test
+    void keepsMissingSpeedAndHeadingNull() {
+        DriverLocationUpdate update = new DriverLocationUpdate();
+        update.setBusId(7L);
+        update.setLatitude(-1.5);
+        update.setLongitude(-70.25);
+
+        DriverLocationUpdate decoded = DriverTelemetryFrame.decode(DriverTelemetryFrame.encode(update));
+
+        assertThat(decoded.getSpeed()).isNull();
+        assertThat(decoded.getHeading()).isNull();
+        assertThat(decoded.getLatitude()).isCloseTo(-1.5, within(1e-7));
+        assertThat(decoded.getLongitude()).isCloseTo(-70.25, within(1e-7));
+    }
+
+    @Test
+    void keepsZeroSpeedWhenPresent() {
+        DriverLocationUpdate update = new DriverLocationUpdate();
+        update.setBusId(7L);
+        update.setLatitude(9.0);
+        update.setLongitude(38.7);
+        update.setSpeed(0.0);
+
+        assertThat(DriverTelemetryFrame.decode(DriverTelemetryFrame.encode(update)).getSpeed()).isEqualTo(0.0);
+    }
+
+    @Test
+    void rejectsShortFrames() {
+        assertThatThrownBy(() -> DriverTelemetryFrame.decode(new byte[DriverTelemetryFrame.LENGTH - 1]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] bytes = ByteBuffer.allocate(DriverTelemetryFrame.LENGTH).put((byte) 9).array();
+
+        assertThatThrownBy(() -> DriverTelemetryFrame.decode(bytes))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("version");
+    }
+}
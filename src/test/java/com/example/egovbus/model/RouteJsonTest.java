@@ -0,0 +1,35 @@
+package com.example.egovbus.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void writesStopsAsNames() throws Exception {
+        BusStop first = BusStop.valueOf("Megenagna");
+        first.setId(1L);
+        first.setLatitude(9.02);
+        Route route = new Route();
+        route.setRouteNumber("12");
+        route.setStops(List.of(first, BusStop.valueOf("Bole")));
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(route));
+
+        assertThat(json.get("stops").isArray()).isTrue();
+        assertThat(json.get("stops")).extracting(JsonNode::asText).containsExactly("Megenagna", "Bole");
+    }
+
+    @Test
+    void readsStopsFromNames() throws Exception {
+        Route route = objectMapper.readValue("{\"routeNumber\":\"12\",\"stops\":[\"Megenagna\",\"Bole\"]}", Route.class);
+
+        assertThat(route.getStops()).extracting(BusStop::getName).containsExactly("Megenagna", "Bole");
+    }
+}
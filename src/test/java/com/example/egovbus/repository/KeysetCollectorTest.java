@@ -0,0 +1,88 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.HistoryCursor;
+import com.example.egovbus.model.LocationFix;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetCollectorTest {
+
+    private static LocationFix fix(long busId, long timestamp) {
+        return LocationFix.builder().busId(busId).latitude(9.0).longitude(38.7).timestamp(timestamp).build();
+    }
+
+    private static void offer(KeysetCollector collector, long id, LocationFix fix) {
+        if (collector.accepts(fix.getBusId(), fix.getTimestamp(), id)) {
+            collector.add(id, fix);
+        }
+    }
+
+    private static List<HistoryCursor> drain(KeysetCollector collector) {
+        List<HistoryCursor> cursors = new ArrayList<>();
+        collector.drainTo((cursor, fix) -> cursors.add(cursor));
+        return cursors;
+    }
+
+    @Test
+    void keepsSmallestKeysInOrderRegardlessOfInputOrder() {
+        KeysetCollector collector = new KeysetCollector(HistoryCursor.START, 3);
+        offer(collector, 5, fix(2, 100));
+        offer(collector, 1, fix(1, 300));
+        offer(collector, 9, fix(3, 50));
+        offer(collector, 2, fix(1, 200));
+        offer(collector, 3, fix(1, 200));
+
+        assertThat(collector.isFull()).isTrue();
+        assertThat(drain(collector)).containsExactly(
+            new HistoryCursor(1, 200, 2),
+            new HistoryCursor(1, 200, 3),
+            new HistoryCursor(1, 300, 1));
+    }
+
+    @Test
+    void skipsKeysAtOrBeforeCursor() {
+        KeysetCollector collector = new KeysetCollector(new HistoryCursor(1, 200, 2), 10);
+
+        assertThat(collector.accepts(1, 200, 2)).isFalse();
+        assertThat(collector.accepts(1, 100, 9)).isFalse();
+        assertThat(collector.accepts(1, 200, 3)).isTrue();
+        assertThat(collector.accepts(2, 0, 0)).isTrue();
+    }
+
+    @Test
+    void rejectsKeysLargerThanFullPage() {
+        KeysetCollector collector = new KeysetCollector(HistoryCursor.START, 2);
+        offer(collector, 1, fix(1, 100));
+        offer(collector, 2, fix(1, 200));
+
+        assertThat(collector.accepts(1, 300, 3)).isFalse();
+        assertThat(collector.accepts(1, 150, 3)).isTrue();
+    }
+
+    @Test
+    void pagesCoverEveryKeyOnce() {
+        List<LocationFix> fixes = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            fixes.add(fix(i % 3, 1000 - i * 10));
+        }
+        List<HistoryCursor> seen = new ArrayList<>();
+        HistoryCursor after = HistoryCursor.START;
+        while (true) {
+            KeysetCollector collector = new KeysetCollector(after, 4);
+            for (int id = 0; id < fixes.size(); id++) {
+                offer(collector, id, fixes.get(id));
+            }
+            List<HistoryCursor> page = drain(collector);
+            if (page.isEmpty()) {
+                break;
+            }
+            seen.addAll(page);
+            after = page.get(page.size() - 1);
+        }
+
+        assertThat(seen).hasSize(25).isSorted().doesNotHaveDuplicates();
+    }
+}
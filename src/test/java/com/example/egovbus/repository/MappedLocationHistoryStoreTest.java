@@ -0,0 +1,71 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.LocationFix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedLocationHistoryStoreTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 1, 5, 12, 0);
+    private static final long NOON_MILLIS = NOON.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    private MappedLocationHistoryStore open() {
+        MappedLocationHistoryStore store = new MappedLocationHistoryStore(directory.toString(), 1);
+        store.open();
+        return store;
+    }
+
+    private static LocationFix fix(long timestamp, Long nearestStopId) {
+        return LocationFix.builder()
+            .busId(3L).latitude(9.01).longitude(38.76).speed(25.5).passengers(7)
+            .timestamp(timestamp).nearestStopId(nearestStopId).build();
+    }
+
+    @Test
+    void keepsFullWidthStopIdsAcrossReopen() {
+        MappedLocationHistoryStore store = open();
+        store.append(List.of(fix(NOON_MILLIS, 70_000L), fix(NOON_MILLIS + 1000, null), fix(NOON_MILLIS + 2000, 5_000_000_000L)));
+        store.close();
+
+        List<LocationFix> fixes = open().findByBusAndTimeRange(3L, NOON.minusHours(1), NOON.plusHours(1));
+
+        assertThat(fixes).extracting(LocationFix::getNearestStopId).containsExactly(5_000_000_000L, null, 70_000L);
+        assertThat(fixes.get(0).getSpeed()).isEqualTo(25.5);
+    }
+
+    @Test
+    void readsLegacySegmentsAndAppendsToANewOne() throws Exception {
+        ByteBuffer legacy = ByteBuffer.allocate(MappedLocationHistoryStore.LEGACY_RECORD_SIZE * 4);
+        legacy.putLong(0, NOON_MILLIS);
+        legacy.putInt(8, 3);
+        legacy.putInt(12, 90_100_000);
+        legacy.putInt(16, 387_600_000);
+        legacy.putShort(20, (short) 0xFFFF);
+        legacy.putShort(22, (short) 0xFFFF);
+        legacy.putShort(24, (short) 4);
+        legacy.putInt(28, 0x42555331);
+        Files.write(directory.resolve("trajectory-20260105-0000.seg"), legacy.array());
+
+        MappedLocationHistoryStore store = open();
+        store.append(List.of(fix(NOON_MILLIS + 1000, 12L)));
+
+        List<LocationFix> fixes = store.findByBusAndTimeRange(3L, NOON.minusHours(1), NOON.plusHours(1));
+        assertThat(fixes).hasSize(2);
+        assertThat(fixes.get(0).getNearestStopId()).isEqualTo(12L);
+        assertThat(fixes.get(1).getNearestStopId()).isNull();
+        assertThat(fixes.get(1).getPassengers()).isEqualTo(4);
+        assertThat(fixes.get(1).getSpeed()).isNull();
+        assertThat(directory.resolve("trajectory-20260105-0001.seg")).exists();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.egovbus.repository;
+
+import com.example.egovbus.model.LocationFix;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TrajectoryCodecTest {
+
+    private static final long BUS_ID = 12L;
+
+    @Test
+    void roundTripsChunk() {
+        List<LocationFix> fixes = new ArrayList<>();
+        long time = 1_760_000_000_000L;
+        for (int i = 0; i < 200; i++) {
+            time += i % 7 == 0 ? 5_000 + i : 5_000;  // 대부분 일정 간격, 가끔 흔들림
+            fixes.add(LocationFix.builder()
+                .busId(BUS_ID)
+                .latitude(9.0 + i * 0.0001234)
+                .longitude(38.75 - i * 0.0000567)
+                .speed(i % 5 == 0 ? null : 20.0 + (i % 13) * 0.1)
+                .heading(i % 3 == 0 ? null : (i * 17.5) % 360)
+                .passengers(10 + i % 4)
+                .timestamp(time)
+                .nearestStopId(i % 11 == 0 ? null : 100L + i / 20)
+                .build());
+        }
+
+        List<LocationFix> decoded = TrajectoryCodec.decode(BUS_ID, TrajectoryCodec.encode(fixes));
+
+        assertThat(decoded).hasSameSizeAs(fixes);
+        for (int i = 0; i < fixes.size(); i++) {
+            LocationFix expected = fixes.get(i);
+            LocationFix actual = decoded.get(i);
+            assertThat(actual.getBusId()).isEqualTo(BUS_ID);
+            assertThat(actual.getTimestamp()).isEqualTo(expected.getTimestamp());
+            assertThat(actual.getLatitude()).isCloseTo(expected.getLatitude(), within(1e-7));
+            assertThat(actual.getLongitude()).isCloseTo(expected.getLongitude(), within(1e-7));
+            assertThat(actual.getSpeed()).isEqualTo(expected.getSpeed());
+            assertThat(actual.getHeading()).isEqualTo(expected.getHeading());
+            assertThat(actual.getPassengers()).isEqualTo(expected.getPassengers());
+            assertThat(actual.getNearestStopId()).isEqualTo(expected.getNearestStopId());
+        }
+    }
+
+    @Test
+    void roundTripsEmptyAndSingleFixChunks() {
+        assertThat(TrajectoryCodec.decode(BUS_ID, TrajectoryCodec.encode(Collections.emptyList()))).isEmpty();
+
+        LocationFix fix = LocationFix.builder()
+            .busId(BUS_ID).latitude(-33.9).longitude(151.2).speed(0.0).passengers(0).timestamp(1L).build();
+        List<LocationFix> decoded = TrajectoryCodec.decode(BUS_ID, TrajectoryCodec.encode(List.of(fix)));
+
+        assertThat(decoded).hasSize(1);
+        assertThat(decoded.get(0).getSpeed()).isEqualTo(0.0);
+        assertThat(decoded.get(0).getHeading()).isNull();
+        assertThat(decoded.get(0).getNearestStopId()).isNull();
+    }
+
+    @Test
+    void decodesVersionOneChunks() {
+        // 버전 1 청크는 정류장 열이 없다 (버전 2 인코딩에서 뒤에 붙는 열을 읽지 않는다)
+        List<LocationFix> fixes = List.of(
+            LocationFix.builder().busId(BUS_ID).latitude(9.01).longitude(38.76).speed(12.5).passengers(3).timestamp(1_000L).build(),
+            LocationFix.builder().busId(BUS_ID).latitude(9.02).longitude(38.77).heading(90.0).passengers(4).timestamp(6_000L).build());
+        byte[] data = TrajectoryCodec.encode(fixes);
+        data[0] = 1;
+
+        List<LocationFix> decoded = TrajectoryCodec.decode(BUS_ID, data);
+
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0).getSpeed()).isEqualTo(12.5);
+        assertThat(decoded.get(1).getHeading()).isEqualTo(90.0);
+        assertThat(decoded.get(1).getPassengers()).isEqualTo(4);
+        assertThat(decoded).allSatisfy(fix -> assertThat(fix.getNearestStopId()).isNull());
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] data = TrajectoryCodec.encode(Collections.emptyList());
+        data[0] = (byte) (TrajectoryCodec.VERSION + 1);
+
+        assertThatThrownBy(() -> TrajectoryCodec.decode(BUS_ID, data)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.egovbus.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeLogTest {
+
+    @Test
+    void reportsChangesAfterVersion() {
+        ChangeLog log = new ChangeLog();
+        log.touch(1L);
+        long since = log.version();
+        log.touch(2L);
+        log.touch(3L);
+        log.touch(2L);
+
+        ChangeLog.Changes changes = log.since(since);
+
+        assertThat(changes.getVersion()).isEqualTo(log.version());
+        assertThat(changes.getChanged()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(changes.getRemoved()).isEmpty();
+    }
+
+    @Test
+    void removalReplacesEarlierChange() {
+        ChangeLog log = new ChangeLog();
+        long since = log.version();
+        log.touch(1L);
+        log.removeAfterCommit(1L);
+        log.touch(2L);
+
+        ChangeLog.Changes changes = log.since(since);
+
+        assertThat(changes.getChanged()).containsExactly(2L);
+        assertThat(changes.getRemoved()).containsExactly(1L);
+    }
+
+    @Test
+    void touchAfterRemovalBringsItemBack() {
+        ChangeLog log = new ChangeLog();
+        log.removeAfterCommit(1L);
+        long since = log.version();
+        log.touchAfterCommit(1L);
+
+        ChangeLog.Changes changes = log.since(since);
+
+        assertThat(changes.getChanged()).containsExactly(1L);
+        assertThat(changes.getRemoved()).isEmpty();
+    }
+
+    @Test
+    void currentVersionHasNoChanges() {
+        ChangeLog log = new ChangeLog();
+        log.touch(1L);
+
+        ChangeLog.Changes changes = log.since(log.version());
+
+        assertThat(changes.getChanged()).isEmpty();
+        assertThat(changes.getRemoved()).isEmpty();
+    }
+
+    @Test
+    void unknownVersionsCannotBeDiffed() {
+        ChangeLog log = new ChangeLog();
+        log.touch(1L);
+
+        assertThat(log.since(0)).isNull();
+        assertThat(log.since(log.version() + 1)).isNull();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.dto.BusPosition;
+import com.example.egovbus.dto.FleetUpdate;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FleetFeedOutboxFeedTest {
+
+    private static BusPosition position(long busId, double latitude) {
+        return new BusPosition(busId, "B" + busId, 1L, latitude, 38.7, 20.0, 5, 60, "ACTIVE",
+            null, null, null, 1_000L);
+    }
+
+    private static FleetFeedOutbox.Feed feedDeliveredAt(long version) {
+        FleetFeedOutbox.Feed feed = new FleetFeedOutbox.Feed(FleetBroadcaster.ALL_DESTINATION);
+        feed.inFlight = true;
+        feed.deliveredVersion = version;
+        return feed;
+    }
+
+    @Test
+    void mergesDeltasIntoOneUpdateFromDeliveredVersion() {
+        FleetFeedOutbox.Feed feed = feedDeliveredAt(10);
+        feed.merge(FleetUpdate.delta(11, 10, List.of(position(1, 9.00), position(2, 9.10)), List.of()), 200);
+        feed.merge(FleetUpdate.delta(12, 11, List.of(position(1, 9.01)), List.of(3L)), 100);
+
+        FleetUpdate merged = feed.drain();
+
+        assertThat(merged.getType()).isEqualTo(FleetUpdate.DELTA);
+        assertThat(merged.getBaseVersion()).isEqualTo(10);
+        assertThat(merged.getVersion()).isEqualTo(12);
+        assertThat(merged.getBuses()).extracting(BusPosition::getId).containsExactly(1L, 2L);
+        assertThat(merged.getBuses().get(0).getLatitude()).isEqualTo(9.01);  // 최신 위치만
+        assertThat(merged.getRemoved()).containsExactly(3L);
+    }
+
+    @Test
+    void laterChangeCancelsRemovalAndViceVersa() {
+        FleetFeedOutbox.Feed feed = feedDeliveredAt(1);
+        feed.merge(FleetUpdate.delta(2, 1, List.of(position(5, 9.0)), List.of(6L)), 100);
+        feed.merge(FleetUpdate.delta(3, 2, List.of(position(6, 9.2)), List.of(5L)), 100);
+
+        FleetUpdate merged = feed.drain();
+
+        assertThat(merged.getBuses()).extracting(BusPosition::getId).containsExactly(6L);
+        assertThat(merged.getRemoved()).containsExactly(5L);
+    }
+
+    @Test
+    void drainResetsPendingAndAdvancesDeliveredVersion() {
+        FleetFeedOutbox.Feed feed = feedDeliveredAt(4);
+        feed.merge(FleetUpdate.delta(5, 4, List.of(position(1, 9.0)), List.of()), 100);
+        assertThat(feed.pendingBytes()).isEqualTo(100);
+
+        feed.drain();
+
+        assertThat(feed.deliveredVersion).isEqualTo(5);
+        assertThat(feed.pendingVersion).isZero();
+        assertThat(feed.pendingBytes()).isZero();
+
+        feed.merge(FleetUpdate.delta(6, 5, List.of(position(2, 9.0)), List.of()), 100);
+        assertThat(feed.drain().getBaseVersion()).isEqualTo(5);
+    }
+
+    @Test
+    void estimatesPendingBytesFromLargestEntrySize() {
+        FleetFeedOutbox.Feed feed = feedDeliveredAt(0);
+        feed.merge(FleetUpdate.delta(1, 0, List.of(position(1, 9.0), position(2, 9.0)), List.of()), 300);
+        feed.merge(FleetUpdate.delta(2, 1, List.of(position(3, 9.0)), List.of(4L)), 100);
+
+        assertThat(feed.pendingBytes()).isEqualTo(4 * 150);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.egovbus.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FleetSpatialIndexTest {
+
+    @Test
+    void findsNearestInDistanceOrder() {
+        FleetSpatialIndex index = new FleetSpatialIndex(0.01);
+        index.update(1L, 9.000, 38.700);
+        index.update(2L, 9.001, 38.700);
+        index.update(3L, 9.050, 38.750);
+        index.update(4L, 9.003, 38.700);
+
+        List<FleetSpatialIndex.Neighbor> nearest = index.findNearest(9.0, 38.7, 2, busId -> true);
+
+        assertThat(nearest).extracting(FleetSpatialIndex.Neighbor::getBusId).containsExactly(1L, 2L);
+        assertThat(nearest.get(0).getDistanceMeters()).isLessThan(1.0);
+        assertThat(nearest.get(1).getDistanceMeters()).isBetween(100.0, 120.0);
+    }
+
+    @Test
+    void appliesFilterAndFollowsMovedBuses() {
+        FleetSpatialIndex index = new FleetSpatialIndex(0.01);
+        index.update(1L, 9.000, 38.700);
+        index.update(2L, 9.002, 38.700);
+        index.update(3L, 9.100, 38.800);
+
+        assertThat(index.findNearest(9.0, 38.7, 1, busId -> busId != 1L))
+            .extracting(FleetSpatialIndex.Neighbor::getBusId).containsExactly(2L);
+
+        index.update(3L, 9.0001, 38.7);  // 셀 경계를 넘어 이동
+        index.remove(1L);
+
+        assertThat(index.findNearest(9.0, 38.7, 1, busId -> true))
+            .extracting(FleetSpatialIndex.Neighbor::getBusId).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void matchesBruteForceAcrossCells() {
+        FleetSpatialIndex index = new FleetSpatialIndex(0.005);
+        Random random = new Random(7);
+        List<double[]> positions = new ArrayList<>();
+        for (long busId = 0; busId < 300; busId++) {
+            double latitude = 8.9 + random.nextDouble() * 0.2;
+            double longitude = 38.6 + random.nextDouble() * 0.2;
+            index.update(busId, latitude, longitude);
+            positions.add(new double[]{busId, latitude, longitude});
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = 8.85 + random.nextDouble() * 0.3;
+            double longitude = 38.55 + random.nextDouble() * 0.3;
+            double metersPerLongitude = Math.cos(Math.toRadians(latitude));
+            List<Long> expected = positions.stream()
+                .sorted(Comparator.comparingDouble(p -> Math.hypot(p[1] - latitude, (p[2] - longitude) * metersPerLongitude)))
+                .limit(5)
+                .map(p -> (long) p[0])
+                .collect(Collectors.toList());
+
+            assertThat(index.findNearest(latitude, longitude, 5, busId -> true))
+                .extracting(FleetSpatialIndex.Neighbor::getBusId)
+                .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void returnsNothingForEmptyIndexOrZeroK() {
+        FleetSpatialIndex index = new FleetSpatialIndex(0.01);
+        assertThat(index.findNearest(9.0, 38.7, 3, busId -> true)).isEmpty();
+
+        index.update(1L, 9.0, 38.7);
+        assertThat(index.findNearest(9.0, 38.7, 0, busId -> true)).isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.egovbus.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeohashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertThat(Geohash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(Geohash.encode(42.605, -5.603, 5)).isEqualTo("ezs42");
+        assertThat(Geohash.encode(-25.382708, -49.265506, 8)).isEqualTo("6gkzwgjz");
+    }
+
+    @Test
+    void shorterHashIsPrefix() {
+        String full = Geohash.encode(9.0054, 38.7636, Geohash.MAX_PRECISION);
+
+        for (int precision = 1; precision < Geohash.MAX_PRECISION; precision++) {
+            assertThat(Geohash.encode(9.0054, 38.7636, precision)).isEqualTo(full.substring(0, precision));
+        }
+    }
+
+    @Test
+    void validatesHashes() {
+        assertThat(Geohash.isValid("sc8")).isTrue();
+        assertThat(Geohash.isValid("0123456789bc")).isTrue();
+        assertThat(Geohash.isValid(null)).isFalse();
+        assertThat(Geohash.isValid("")).isFalse();
+        assertThat(Geohash.isValid("sc8a")).isFalse();  // a, i, l, o 는 geohash 문자가 아니다
+        assertThat(Geohash.isValid("SC8")).isFalse();
+        assertThat(Geohash.isValid("0123456789bcd")).isFalse();
+    }
+}
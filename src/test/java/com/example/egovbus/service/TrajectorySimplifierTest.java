@@ -0,0 +1,69 @@
+package com.example.egovbus.service;
+
+import com.example.egovbus.model.LocationFix;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrajectorySimplifierTest {
+
+    // 약 11m 간격으로 동쪽으로 가다가 북쪽으로 꺾는 궤적
+    private static List<LocationFix> cornerTrack() {
+        List<LocationFix> points = new ArrayList<>();
+        long time = 0;
+        for (int i = 0; i <= 50; i++) {
+            points.add(fix(9.0, 38.7 + i * 0.0001, time += 1000));
+        }
+        for (int i = 1; i <= 50; i++) {
+            points.add(fix(9.0 + i * 0.0001, 38.705, time += 1000));
+        }
+        return points;
+    }
+
+    private static LocationFix fix(double latitude, double longitude, long timestamp) {
+        return LocationFix.builder().busId(1L).latitude(latitude).longitude(longitude).timestamp(timestamp).build();
+    }
+
+    @Test
+    void keepsEndpointsAndCornerOfStraightSegments() {
+        List<LocationFix> points = cornerTrack();
+
+        List<LocationFix> simplified = TrajectorySimplifier.simplify(points, 1.0, 500);
+
+        assertThat(simplified).containsExactly(points.get(0), points.get(50), points.get(100));
+    }
+
+    @Test
+    void keepsInputOrderAndRespectsMaxPoints() {
+        List<LocationFix> points = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            points.add(fix(9.0 + Math.sin(i / 5.0) * 0.001, 38.7 + i * 0.0001, i * 1000L));
+        }
+
+        List<LocationFix> simplified = TrajectorySimplifier.simplify(points, 0.0, 20);
+
+        assertThat(simplified).hasSize(20);
+        assertThat(simplified.get(0)).isSameAs(points.get(0));
+        assertThat(simplified.get(19)).isSameAs(points.get(199));
+        assertThat(simplified).isSortedAccordingTo((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+    }
+
+    @Test
+    void returnsShortTracksUnchanged() {
+        List<LocationFix> points = List.of(fix(9.0, 38.7, 0), fix(9.1, 38.8, 1000));
+
+        assertThat(TrajectorySimplifier.simplify(points, 100.0, 2)).containsExactlyElementsOf(points);
+        assertThat(TrajectorySimplifier.simplify(cornerTrack(), 0.0, 500)).hasSize(101);
+    }
+
+    @Test
+    void toleranceHalvesPerZoomLevel() {
+        double zoom12 = TrajectorySimplifier.toleranceForZoom(12, 9.0);
+        double zoom13 = TrajectorySimplifier.toleranceForZoom(13, 9.0);
+
+        assertThat(zoom12).isEqualTo(zoom13 * 2);
+        assertThat(TrajectorySimplifier.toleranceForZoom(0, 0.0)).isEqualTo(156_543.03392);
+    }
+}